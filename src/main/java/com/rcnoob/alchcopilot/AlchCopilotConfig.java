@@ -75,6 +75,30 @@ public interface AlchCopilotConfig extends Config {
         return MembershipFilter.BOTH;
     }
 
+    @ConfigItem(
+            keyName = "useRemoteMembershipDatabase",
+            name = "Remote Membership Fallback",
+            description = "Download the full item database for items neither the wiki mapping nor the client cache flag as members or free.",
+            section = selectionSection,
+            position = 6
+    )
+    default boolean useRemoteMembershipDatabase() {
+        return false;
+    }
+
+    @ConfigItem(
+            keyName = "searchTimeBudget",
+            name = "Search Time Budget",
+            description = "Maximum seconds a search waits on the prices API before using the best item found so far.",
+            section = selectionSection,
+            position = 7
+    )
+    @Units(Units.SECONDS)
+    @Range(min = 1, max = 60)
+    default int searchTimeBudget() {
+        return 5;
+    }
+
     enum MembershipFilter {
         F2P("Free-to-Play Only"),
         P2P("Members Only"),
@@ -92,6 +116,25 @@ public interface AlchCopilotConfig extends Config {
         }
     }
 
+    @ConfigSection(
+            name = "Profiles",
+            description = "Additional named criteria profiles, evaluated in the same scan as the settings above",
+            position = 2,
+            closedByDefault = true)
+    String profilesSection = "Profiles";
+
+    @ConfigItem(
+            keyName = "profiles",
+            name = "Criteria Profiles",
+            description = "One profile per line as 'name: key=value, ...'. Keys: minimumProfit, minimumGeLimit, maxPrice, "
+                    + "maxTotalPrice, minimumVolumePerHour, membership (F2P, P2P, BOTH). Missing keys use the selection criteria.",
+            section = profilesSection,
+            position = 0
+    )
+    default String profiles() {
+        return "";
+    }
+
     @ConfigSection(
             name = "Display Settings",
             description = "How the plugin displays information",
@@ -123,7 +166,7 @@ public interface AlchCopilotConfig extends Config {
     @ConfigItem(
             keyName = "refreshOnLogin",
             name = "Auto-refresh on Login",
-            description = "Automatically search for optimal items when logging in.",
+            description = "Automatically search for optimal items when logging in. The search waits until the panel has been opened.",
             section = displaySection,
             position = 2
     )
@@ -142,4 +185,34 @@ public interface AlchCopilotConfig extends Config {
     default int maxRecommendations() {
         return 10;
     }
-}
\ No newline at end of file
+
+    @ConfigItem(
+            keyName = "showHoldings",
+            name = "Show Profitable Holdings",
+            description = "List items in your inventory and bank that are worth more alched than sold.",
+            section = displaySection,
+            position = 4
+    )
+    default boolean showHoldings() {
+        return true;
+    }
+
+    @ConfigSection(
+            name = "Advanced",
+            description = "Plugin-wide resource limits",
+            position = 3,
+            closedByDefault = true)
+    String advancedSection = "Advanced";
+
+    @ConfigItem(
+            keyName = "memoryBudget",
+            name = "Memory Budget (MB)",
+            description = "Upper bound on the memory used by cached icons, prices and item data.",
+            section = advancedSection,
+            position = 0
+    )
+    @Range(min = 8, max = 256)
+    default int memoryBudget() {
+        return 32;
+    }
+}
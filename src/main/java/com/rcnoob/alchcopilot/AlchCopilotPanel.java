@@ -1,6 +1,12 @@
 package com.rcnoob.alchcopilot;
 
+import com.rcnoob.alchcopilot.engine.Candidate;
+import com.rcnoob.alchcopilot.engine.SearchProfile;
 import com.rcnoob.alchcopilot.model.AlchItem;
+import com.rcnoob.alchcopilot.model.Holding;
+import com.rcnoob.alchcopilot.model.PriceTrend;
+import com.rcnoob.alchcopilot.model.Watch;
+import com.rcnoob.alchcopilot.service.OutcomeLog;
 import com.rcnoob.alchcopilot.service.VolumeChecker;
 import com.rcnoob.alchcopilot.util.IntegerUtil;
 import net.runelite.api.Client;
@@ -11,10 +17,13 @@ import net.runelite.client.ui.PluginPanel;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.image.BufferedImage;
+import java.util.Collections;
 import java.util.List;
 
 public class AlchCopilotPanel extends PluginPanel {
@@ -22,6 +31,10 @@ public class AlchCopilotPanel extends PluginPanel {
     // alchemy takes 3 seconds per cast
     private static final double SECONDS_PER_ALCH = 3.0;
     private static final double ALCHS_PER_HOUR = 3600.0 / SECONDS_PER_ALCH;
+    private static final int MAX_HOLDINGS_SHOWN = 5;
+    private static final int RANKED_ROW_HEIGHT = 36;
+    private static final String RECOMMENDATIONS_CARD = "recommendations";
+    private static final String RANKED_CARD = "ranked";
 
     private final Client client;
     private final ItemManager itemManager;
@@ -31,17 +44,44 @@ public class AlchCopilotPanel extends PluginPanel {
     JButton refreshButton;
     JButton clearButton;
     JLabel statusLabel;
+    JComboBox<String> profileSelector;
+    JToggleButton rankedToggle;
+    private JPanel centerPanel;
+    private final RankedListModel rankedModel = new RankedListModel();
+    private boolean updatingProfiles = false;
+    private volatile boolean initialized = false;
+    private final PanelRefreshScheduler refreshScheduler = new PanelRefreshScheduler(this::rebuildItemList);
 
     public AlchCopilotPanel(AlchCopilotPlugin plugin, Client client, ItemManager itemManager) {
         super();
         this.plugin = plugin;
         this.client = client;
         this.itemManager = itemManager;
-        this.refreshButton = new JButton("Find");
 
         setBorder(new EmptyBorder(6, 6, 6, 6));
         setBackground(ColorScheme.DARK_GRAY_COLOR);
         setLayout(new BorderLayout());
+    }
+
+    // build the real panel contents the first time the panel is shown
+    @Override
+    public void onActivate() {
+        if (initialized) {
+            return;
+        }
+
+        buildContent();
+        initialized = true;
+        plugin.onPanelOpened();
+        updateItemList();
+    }
+
+    public boolean isInitialized() {
+        return initialized;
+    }
+
+    private void buildContent() {
+        this.refreshButton = new JButton("Find");
 
         // create main layout container
         final JPanel layoutPanel = new JPanel();
@@ -78,6 +118,17 @@ public class AlchCopilotPanel extends PluginPanel {
 
         layoutPanel.add(buttonPanel);
 
+        // profile selector switches between the results of each criteria profile
+        profileSelector = new JComboBox<>();
+        profileSelector.setFocusable(false);
+        profileSelector.addActionListener(e -> {
+            if (!updatingProfiles && profileSelector.getSelectedItem() != null) {
+                plugin.setActiveProfile((String) profileSelector.getSelectedItem());
+                updateItemList();
+            }
+        });
+        layoutPanel.add(profileSelector);
+
         // status label shows current plugin state
         statusLabel = new JLabel("Ready to search for optimal alch item");
         statusLabel.setForeground(Color.LIGHT_GRAY);
@@ -97,21 +148,54 @@ public class AlchCopilotPanel extends PluginPanel {
         scrollPane.getVerticalScrollBar().setUnitIncrement(16);
         scrollPane.setBackground(ColorScheme.DARK_GRAY_COLOR);
 
-        add(scrollPane, BorderLayout.CENTER);
+        // the recommendations and the full ranking share the space below the controls
+        centerPanel = new JPanel(new CardLayout());
+        centerPanel.setBackground(ColorScheme.DARK_GRAY_COLOR);
+        centerPanel.add(scrollPane, RECOMMENDATIONS_CARD);
+        centerPanel.add(buildRankedView(), RANKED_CARD);
+        add(centerPanel, BorderLayout.CENTER);
+
+        // switches to every candidate passing the filters, not just the recommendations
+        rankedToggle = new JToggleButton("All candidates");
+        rankedToggle.setFocusable(false);
+        rankedToggle.addActionListener(e -> {
+            ((CardLayout) centerPanel.getLayout()).show(centerPanel, rankedToggle.isSelected() ? RANKED_CARD : RECOMMENDATIONS_CARD);
+            updateItemList();
+        });
+        layoutPanel.add(rankedToggle);
 
-        updateItemList();
+        revalidate();
+    }
+
+    // refresh from any thread while a search streams results, keeping the scroll position
+    public void requestRefresh() {
+        refreshScheduler.request(false);
     }
 
-    // refresh the displayed list of recommendations
+    // refresh the displayed list of recommendations from any thread and scroll back to the top
     public void updateItemList() {
+        refreshScheduler.request(true);
+    }
+
+    private void rebuildItemList(boolean scrollToTop) {
+        if (!initialized) {
+            return;
+        }
+
+        // progress refreshes arrive mid-search, keep Find disabled until it completes
         refreshButton.setText("Find");
-        refreshButton.setEnabled(true);
+        refreshButton.setEnabled(!plugin.readyForOptimalUpdate);
         clearButton.setEnabled(plugin.hasRecommendations());
+        updateProfileSelector();
 
         List<AlchItem> recommendations = plugin.getAlchItems();
+        List<AlchItem> liveCandidates = plugin.getLiveCandidates();
         recommendationsPanel.removeAll();
 
-        if (recommendations.isEmpty()) {
+        if (recommendations.isEmpty() && !liveCandidates.isEmpty()) {
+            statusLabel.setText("Checking " + liveCandidates.size() + " candidates...");
+            clearButton.setEnabled(false);
+        } else if (recommendations.isEmpty()) {
             if (plugin.readyForOptimalUpdate) {
                 // show waiting message while searching
                 statusLabel.setText("Searching for items...");
@@ -134,7 +218,9 @@ public class AlchCopilotPanel extends PluginPanel {
             }
         } else {
             // display found recommendations
-            statusLabel.setText("Found " + recommendations.size() + " item" + (recommendations.size() == 1 ? "" : "s"));
+            boolean partial = recommendations.stream().anyMatch(AlchItem::isPartial);
+            statusLabel.setText("Found " + recommendations.size() + " item" + (recommendations.size() == 1 ? "" : "s")
+                    + (partial ? " (partial)" : ""));
 
             for (int i = 0; i < recommendations.size(); i++) {
                 AlchItem item = recommendations.get(i);
@@ -147,13 +233,277 @@ public class AlchCopilotPanel extends PluginPanel {
             }
         }
 
+        // candidates still being checked, below any existing recommendations
+        if (!liveCandidates.isEmpty()) {
+            JLabel checkingLabel = new JLabel("Checking volume...");
+            checkingLabel.setForeground(Color.LIGHT_GRAY);
+            checkingLabel.setFont(FontManager.getRunescapeSmallFont());
+            checkingLabel.setBorder(new EmptyBorder(recommendations.isEmpty() ? 0 : 10, 0, 5, 0));
+            recommendationsPanel.add(checkingLabel);
+
+            for (AlchItem candidate : liveCandidates) {
+                recommendationsPanel.add(generateCandidatePanel(candidate));
+                recommendationsPanel.add(Box.createVerticalStrut(4));
+            }
+        }
+
+        // items the player already owns that are worth more alched than sold
+        List<Holding> holdings = plugin.config.showHoldings() ? plugin.getHoldings() : Collections.emptyList();
+        if (!holdings.isEmpty()) {
+            recommendationsPanel.add(generateHoldingsPanel(holdings));
+        }
+
+        List<Watch> watches = plugin.getWatches();
+        if (!watches.isEmpty()) {
+            recommendationsPanel.add(generateWatchlistPanel(watches));
+        }
+
         recommendationsPanel.revalidate();
         recommendationsPanel.repaint();
 
-        // scroll to top of list
-        SwingUtilities.invokeLater(() -> {
-            scrollPane.getVerticalScrollBar().setValue(0);
+        if (rankedToggle.isSelected()) {
+            updateRankedView();
+        }
+
+        if (scrollToTop) {
+            SwingUtilities.invokeLater(() -> scrollPane.getVerticalScrollBar().setValue(0));
+        }
+    }
+
+    // keep the selector in sync with the configured profiles, hidden when there is only the default
+    private void updateProfileSelector() {
+        updatingProfiles = true;
+        profileSelector.removeAllItems();
+        for (SearchProfile profile : plugin.getProfiles()) {
+            profileSelector.addItem(profile.getName());
+        }
+        profileSelector.setSelectedItem(plugin.getActiveProfile());
+        profileSelector.setVisible(profileSelector.getItemCount() > 1);
+        updatingProfiles = false;
+    }
+
+    // virtualized list of every candidate, one shared renderer paints only the rows in view
+    private JPanel buildRankedView() {
+        JPanel container = new JPanel(new BorderLayout(0, 5));
+        container.setBackground(ColorScheme.DARK_GRAY_COLOR);
+
+        JPanel controls = new JPanel(new GridLayout(2, 1, 0, 3));
+        controls.setOpaque(false);
+
+        JComboBox<RankedListModel.SortOrder> sortSelector = new JComboBox<>(RankedListModel.SortOrder.values());
+        sortSelector.setFocusable(false);
+        sortSelector.addActionListener(e -> {
+            rankedModel.setSortOrder((RankedListModel.SortOrder) sortSelector.getSelectedItem());
+            updateRankedStatus();
         });
+        controls.add(sortSelector);
+
+        JTextField filterField = new JTextField();
+        filterField.setToolTipText("Filter by item name");
+        filterField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                changedUpdate(e);
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                changedUpdate(e);
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                rankedModel.setFilter(filterField.getText());
+                updateRankedStatus();
+            }
+        });
+        controls.add(filterField);
+        container.add(controls, BorderLayout.NORTH);
+
+        JList<Candidate> rankedList = new JList<>(rankedModel);
+        rankedList.setCellRenderer(new RankedItemRenderer());
+        rankedList.setBackground(ColorScheme.DARK_GRAY_COLOR);
+        rankedList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        // fixed cell sizes stop the list measuring every row, rows still span the viewport width
+        rankedList.setFixedCellHeight(RANKED_ROW_HEIGHT);
+        rankedList.setFixedCellWidth(1);
+
+        JScrollPane rankedScrollPane = new JScrollPane(rankedList);
+        rankedScrollPane.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
+        rankedScrollPane.setBorder(null);
+        rankedScrollPane.getVerticalScrollBar().setUnitIncrement(RANKED_ROW_HEIGHT);
+        container.add(rankedScrollPane, BorderLayout.CENTER);
+
+        return container;
+    }
+
+    // the ranking is only rebuilt when the prices or the active profile have changed
+    private void updateRankedView() {
+        rankedModel.setCandidates(plugin.getRankedCandidates());
+        updateRankedStatus();
+    }
+
+    private void updateRankedStatus() {
+        if (!rankedToggle.isSelected()) {
+            return;
+        }
+
+        if (rankedModel.getCandidateCount() == 0) {
+            statusLabel.setText(plugin.readyForOptimalUpdate ? "Searching for items..." : "Run a search to rank candidates");
+        } else if (rankedModel.getSize() == rankedModel.getCandidateCount()) {
+            statusLabel.setText(formatNumber(rankedModel.getCandidateCount()) + " candidates");
+        } else {
+            statusLabel.setText(rankedModel.getSize() + " of " + rankedModel.getCandidateCount() + " candidates");
+        }
+    }
+
+    // one reusable row component, configured per painted row
+    private class RankedItemRenderer extends JPanel implements ListCellRenderer<Candidate> {
+        private final JLabel nameLabel = new JLabel();
+        private final JLabel profitLabel = new JLabel();
+        private final JLabel detailLabel = new JLabel();
+
+        RankedItemRenderer() {
+            setLayout(new BorderLayout());
+            setBorder(BorderFactory.createCompoundBorder(
+                    BorderFactory.createMatteBorder(0, 0, 1, 0, ColorScheme.MEDIUM_GRAY_COLOR),
+                    BorderFactory.createEmptyBorder(2, 5, 2, 5)
+            ));
+
+            nameLabel.setForeground(Color.WHITE);
+            nameLabel.setFont(FontManager.getRunescapeSmallFont());
+            profitLabel.setForeground(Color.GREEN);
+            profitLabel.setFont(FontManager.getRunescapeSmallFont());
+            detailLabel.setForeground(Color.LIGHT_GRAY);
+            detailLabel.setFont(FontManager.getRunescapeSmallFont());
+
+            JPanel top = new JPanel(new BorderLayout());
+            top.setOpaque(false);
+            top.add(nameLabel, BorderLayout.CENTER);
+            top.add(profitLabel, BorderLayout.EAST);
+            add(top, BorderLayout.NORTH);
+            add(detailLabel, BorderLayout.SOUTH);
+        }
+
+        @Override
+        public Component getListCellRendererComponent(JList<? extends Candidate> list, Candidate candidate, int index,
+                                                      boolean isSelected, boolean cellHasFocus) {
+            nameLabel.setText((index + 1) + ". " + candidate.getName());
+            profitLabel.setText("+" + formatNumber(candidate.getProfit()) + " gp");
+            String limit = candidate.getRemainingLimit() < candidate.getGeLimit() ?
+                    formatNumber(candidate.getRemainingLimit()) + "/" + formatNumber(candidate.getGeLimit()) + " left" :
+                    "limit " + formatNumber(candidate.getGeLimit());
+            detailLabel.setText(formatNumber(candidate.getPrice()) + " gp, " + limit);
+            setBackground(isSelected ? ColorScheme.MEDIUM_GRAY_COLOR : ColorScheme.DARKER_GRAY_COLOR);
+            return this;
+        }
+    }
+
+    // compact row for a candidate whose volume is still being checked
+    private JPanel generateCandidatePanel(AlchItem item) {
+        JPanel container = new JPanel();
+        container.setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createLineBorder(ColorScheme.MEDIUM_GRAY_COLOR, 1),
+                BorderFactory.createEmptyBorder(5, 5, 5, 5)
+        ));
+        container.setLayout(new BoxLayout(container, BoxLayout.Y_AXIS));
+        container.setBackground(ColorScheme.DARKER_GRAY_COLOR);
+
+        JLabel nameLabel = new JLabel(item.getName(), new ImageIcon(item.getImage()), SwingConstants.LEFT);
+        nameLabel.setForeground(Color.WHITE);
+        nameLabel.setFont(FontManager.getRunescapeSmallFont());
+        container.add(nameLabel);
+
+        container.add(createInfoRow("Profit per Alch:", formatNumber(item.getHighAlchProfit()) + " gp", Color.GREEN));
+
+        VolumeChecker.VolumeData volumeData = item.getVolumeData();
+        if (volumeData == null) {
+            container.add(createInfoRow("Daily Volume:", "checking...", Color.LIGHT_GRAY));
+        } else {
+            container.add(createInfoRow("Daily Volume:",
+                    formatNumber((int) volumeData.getEstimatedDailyVolume()) + " units",
+                    getVolumeColor((int) volumeData.getEstimatedDailyVolume())));
+        }
+
+        return container;
+    }
+
+    // ask for the profit per alch to be alerted at, defaulting to the current profit
+    private void promptWatch(AlchItem item) {
+        String input = JOptionPane.showInputDialog(this,
+                "Notify when " + item.getName() + " makes at least this much per alch (gp):",
+                String.valueOf(item.getHighAlchProfit()));
+        if (input == null) {
+            return;
+        }
+
+        try {
+            plugin.addWatch(item, Integer.parseInt(input.trim().replace(",", "")));
+            updateItemList();
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(this, "Enter a whole number of gp.", "Alch Copilot", JOptionPane.WARNING_MESSAGE);
+        }
+    }
+
+    // watched items with their target and last checked profit
+    private JPanel generateWatchlistPanel(List<Watch> watches) {
+        JPanel container = new JPanel();
+        container.setBorder(new EmptyBorder(10, 0, 0, 0));
+        container.setLayout(new BoxLayout(container, BoxLayout.Y_AXIS));
+        container.setOpaque(false);
+
+        JLabel titleLabel = new JLabel("Watchlist");
+        titleLabel.setForeground(Color.WHITE);
+        titleLabel.setFont(FontManager.getRunescapeBoldFont());
+        titleLabel.setBorder(new EmptyBorder(0, 0, 5, 0));
+        container.add(titleLabel);
+
+        for (Watch watch : watches) {
+            Integer profit = plugin.getWatchedProfit(watch.getItemId());
+            boolean reached = profit != null && profit >= watch.getTargetProfit();
+            String value = (profit != null ? formatNumber(profit) : "?") + " / " + formatNumber(watch.getTargetProfit()) + " gp";
+
+            JPanel row = new JPanel(new BorderLayout());
+            row.setOpaque(false);
+            row.add(createInfoRow(watch.getName() + ":", value, reached ? Color.GREEN : Color.LIGHT_GRAY), BorderLayout.CENTER);
+
+            JButton removeButton = new JButton("x");
+            removeButton.setFont(FontManager.getRunescapeSmallFont());
+            removeButton.setMargin(new Insets(0, 4, 0, 4));
+            removeButton.setToolTipText("Stop watching");
+            removeButton.addActionListener(e -> {
+                plugin.removeWatch(watch);
+                updateItemList();
+            });
+            row.add(removeButton, BorderLayout.EAST);
+            container.add(row);
+        }
+
+        return container;
+    }
+
+    // most profitable owned stacks, capped to keep the section short
+    private JPanel generateHoldingsPanel(List<Holding> holdings) {
+        JPanel container = new JPanel();
+        container.setBorder(new EmptyBorder(10, 0, 0, 0));
+        container.setLayout(new BoxLayout(container, BoxLayout.Y_AXIS));
+        container.setOpaque(false);
+
+        JLabel titleLabel = new JLabel("Worth alching from inventory and bank");
+        titleLabel.setForeground(Color.WHITE);
+        titleLabel.setFont(FontManager.getRunescapeBoldFont());
+        titleLabel.setBorder(new EmptyBorder(0, 0, 5, 0));
+        container.add(titleLabel);
+
+        for (Holding holding : holdings.subList(0, Math.min(MAX_HOLDINGS_SHOWN, holdings.size()))) {
+            JPanel row = createInfoRow(holding.getName() + " x" + formatNumber((int) Math.min(Integer.MAX_VALUE, holding.getQuantity())) + ":",
+                    "+" + formatNumber((int) Math.min(Integer.MAX_VALUE, holding.getTotalProfit())) + " gp",
+                    Color.GREEN);
+            row.setToolTipText(formatNumber(holding.getProfitEach()) + " gp more per alch than selling");
+            container.add(row);
+        }
+
+        return container;
     }
 
     // create the detailed panel for each recommended item
@@ -232,10 +582,24 @@ public class AlchCopilotPanel extends PluginPanel {
                     Color.YELLOW);
             container.add(alchPanel);
 
+            // what is left of the limit once part of it has been bought this window
+            int remainingLimit = plugin.getRemainingLimit(item);
             JPanel limitPanel = createInfoRow("GE Limit:",
-                    formatNumber(item.getGeLimit()) + "/4h",
-                    Color.LIGHT_GRAY);
+                    remainingLimit < item.getGeLimit() ?
+                            formatNumber(remainingLimit) + " of " + formatNumber(item.getGeLimit()) + " left" :
+                            formatNumber(item.getGeLimit()) + "/4h",
+                    remainingLimit < item.getGeLimit() ? Color.ORANGE : Color.LIGHT_GRAY);
             container.add(limitPanel);
+
+            // what the profit did after earlier recommendations of the same item
+            OutcomeLog.ItemOutcome outcome = plugin.getRecentOutcome(item);
+            if (outcome != null && outcome.observations > 0) {
+                double realized = outcome.getAverageRealizedProfit();
+                JPanel outcomePanel = createInfoRow("Past 30 Days:",
+                        formatNumber((int) Math.round(realized)) + " gp realized, " + outcome.recommendations + "x picked",
+                        realized >= outcome.getAverageRecommendedProfit() ? Color.GREEN : Color.ORANGE);
+                container.add(outcomePanel);
+            }
         }
 
         // optional volume information
@@ -254,10 +618,34 @@ public class AlchCopilotPanel extends PluginPanel {
             container.add(hourlyVolumePanel);
         }
 
+        // smoothed price direction and volatility over the last hour
+        PriceTrend trend = item.getPriceTrend();
+        if (plugin.config.showVolumeInfo() && trend != null) {
+            long trendPerHour = Math.round(trend.getTrendPerHour());
+            // a move bigger than the usual noise: rising eats into the margin, falling adds to it
+            Color trendColor = trendPerHour > trend.getPriceStdDev() ? Color.RED
+                    : trendPerHour < -trend.getPriceStdDev() ? Color.GREEN : Color.LIGHT_GRAY;
+            JPanel trendPanel = createInfoRow("Price Trend:",
+                    (trendPerHour < 0 ? "-" : "+") + formatNumber((int) Math.min(Integer.MAX_VALUE, Math.abs(trendPerHour))) + " gp/hr",
+                    trendColor);
+            container.add(trendPanel);
+
+            JPanel volatilityPanel = createInfoRow("Volatility:",
+                    "\u00b1" + formatNumber((int) Math.round(trend.getPriceStdDev())) + " gp",
+                    Color.LIGHT_GRAY);
+            container.add(volatilityPanel);
+        }
+
+        // picked at the search deadline without volume data
+        if (plugin.config.showVolumeInfo() && item.isPartial() && item.getVolumeData() == null) {
+            JPanel partialPanel = createInfoRow("Volume:", "timed out", Color.ORANGE);
+            container.add(partialPanel);
+        }
+
         container.add(Box.createVerticalStrut(10));
 
         // recommendation section with quantity and total cost
-        int recommendedQuantity = plugin.calculateRecommendedQuantity(item.getGePrice(), item.getGeLimit());
+        int recommendedQuantity = plugin.calculateRecommendedQuantity(item);
         long totalCost = (long) recommendedQuantity * item.getGePrice();
 
         JPanel recommendationPanel = new JPanel(new BorderLayout());
@@ -288,10 +676,20 @@ public class AlchCopilotPanel extends PluginPanel {
         recommendationPanel.add(contentPanel, BorderLayout.WEST);
         container.add(recommendationPanel);
 
+        container.add(Box.createVerticalStrut(8));
+
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+        buttonPanel.setOpaque(false);
+
+        // watch button sets up a profit alert for this item
+        JButton watchButton = new JButton("Watch");
+        watchButton.setFont(FontManager.getRunescapeSmallFont());
+        watchButton.setPreferredSize(new Dimension(80, 25));
+        watchButton.addActionListener(e -> promptWatch(item));
+        buttonPanel.add(watchButton);
+
         // remove button for non-top items
         if (rank > 1) {
-            container.add(Box.createVerticalStrut(8));
-
             JButton removeButton = new JButton("Remove");
             removeButton.setFont(FontManager.getRunescapeSmallFont());
             removeButton.setPreferredSize(new Dimension(80, 25));
@@ -299,13 +697,12 @@ public class AlchCopilotPanel extends PluginPanel {
                 plugin.removeRecommendation(item);
                 updateItemList();
             });
-
-            JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
-            buttonPanel.setOpaque(false);
+            buttonPanel.add(Box.createHorizontalStrut(5));
             buttonPanel.add(removeButton);
-            container.add(buttonPanel);
         }
 
+        container.add(buttonPanel);
+
         return container;
     }
 
@@ -1,29 +1,51 @@
 package com.rcnoob.alchcopilot;
 
 import com.google.inject.Provides;
+import com.rcnoob.alchcopilot.engine.AlchSearchEngine;
+import com.rcnoob.alchcopilot.engine.Candidate;
+import com.rcnoob.alchcopilot.engine.ItemTable;
+import com.rcnoob.alchcopilot.engine.MembershipFilter;
+import com.rcnoob.alchcopilot.engine.SearchCriteria;
+import com.rcnoob.alchcopilot.engine.SearchMemo;
+import com.rcnoob.alchcopilot.engine.SearchProfile;
+import com.rcnoob.alchcopilot.engine.TierHistory;
 import com.rcnoob.alchcopilot.model.AlchItem;
+import com.rcnoob.alchcopilot.model.Holding;
+import com.rcnoob.alchcopilot.model.MarketSnapshot;
+import com.rcnoob.alchcopilot.model.RecommendationList;
+import com.rcnoob.alchcopilot.model.Watch;
+import com.rcnoob.alchcopilot.service.BoundedCache;
+import com.rcnoob.alchcopilot.service.BuyLimitLedger;
+import com.rcnoob.alchcopilot.service.CacheBudget;
+import com.rcnoob.alchcopilot.service.ClientItemDataSource;
+import com.rcnoob.alchcopilot.service.HoldingsScanner;
+import com.rcnoob.alchcopilot.service.MarketState;
+import com.rcnoob.alchcopilot.service.OutcomeLog;
+import com.rcnoob.alchcopilot.service.PriceIndicators;
 import com.rcnoob.alchcopilot.service.VolumeChecker;
-import com.rcnoob.alchcopilot.service.ItemDatabaseService;
+import com.rcnoob.alchcopilot.service.WatchlistService;
+import com.rcnoob.alchcopilot.service.ItemMappingService;
+import com.rcnoob.alchcopilot.service.SingleFlightFetcher;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.*;
 import net.runelite.api.events.*;
+import net.runelite.api.gameval.InventoryID;
 import net.runelite.client.config.ConfigManager;
 import net.runelite.client.eventbus.Subscribe;
+import net.runelite.client.events.ConfigChanged;
 import net.runelite.client.game.ItemManager;
 import net.runelite.client.plugins.Plugin;
 import net.runelite.client.plugins.PluginDescriptor;
 import net.runelite.client.ui.ClientToolbar;
 import net.runelite.client.ui.NavigationButton;
 import net.runelite.client.util.ImageUtil;
-import net.runelite.http.api.item.ItemPrice;
-import net.runelite.client.game.ItemStats;
 
 import javax.inject.Inject;
-import javax.swing.*;
 import java.awt.image.BufferedImage;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @PluginDescriptor(
@@ -31,14 +53,16 @@ import java.util.concurrent.atomic.AtomicInteger;
 )
 public class AlchCopilotPlugin extends Plugin {
 
-    // flags to control search behavior
-    public boolean readyForOptimalUpdate = true;
-    public boolean findingNewItem = false;
-    private boolean searchInProgress = false;
+    // flags to control search behavior, written from search callbacks and read on the client thread and EDT
+    public volatile boolean readyForOptimalUpdate = false;
+    public volatile boolean findingNewItem = false;
+    private final SearchRounds searchRounds = new SearchRounds();
 
     @Inject
     private Client client;
     @Inject
+    private ConfigManager configManager;
+    @Inject
     public AlchCopilotConfig config;
     @Inject
     private ItemManager itemManager;
@@ -47,31 +71,71 @@ public class AlchCopilotPlugin extends Plugin {
     @Inject
     private VolumeChecker volumeChecker;
     @Inject
-    private ItemDatabaseService itemDatabaseService;
+    private ItemMappingService itemMappingService;
+    @Inject
+    private SingleFlightFetcher singleFlightFetcher;
+    @Inject
+    private ClientItemDataSource clientItemDataSource;
+    @Inject
+    private AlchSearchEngine searchEngine;
+    @Inject
+    private CacheBudget cacheBudget;
+    @Inject
+    private HoldingsScanner holdingsScanner;
+    @Inject
+    private WatchlistService watchlistService;
+    @Inject
+    private MarketState marketState;
+    @Inject
+    private OutcomeLog outcomeLog;
+    @Inject
+    private BuyLimitLedger buyLimitLedger;
 
-    // store recommendations and track which items we've already recommended
-    private final List<AlchItem> recommendations = new ArrayList<>();
-    private final Set<Integer> recommendedItemIds = new HashSet<>();
+    // watched items are re-priced roughly once a minute
+    private static final int WATCH_CHECK_TICKS = 100;
+    private int ticksSinceWatchCheck = 0;
+
+    // criteria profiles evaluated together, each with its own recommendations
+    private volatile List<SearchProfile> profiles = Collections.emptyList();
+    private final Map<String, RecommendationList> recommendationsByProfile = new ConcurrentHashMap<>();
+    private volatile String activeProfile = SearchProfile.DEFAULT_NAME;
     private NavigationButton navButton;
     private AlchCopilotPanel panel;
+    // item icons keyed by id and stack size
+    private BoundedCache<Long, BufferedImage> iconCache;
+    private final SearchMemo<MemoizedResult> searchMemo = new SearchMemo<>();
+    // where past winners ranked, used to size the volume tiers
+    private final TierHistory tierHistory = new TierHistory();
+    // searches still running, by profile name
+    private final Map<String, ProfileSearch> activeSearches = new ConcurrentHashMap<>();
+    // full ranking behind the panel's candidate list and the inputs it was built from
+    private List<Candidate> rankedCandidates = Collections.emptyList();
+    private ItemTable rankedTable;
+    private SearchCriteria rankedCriteria;
+    // warm-up after login, only touched on the client thread
+    private Prewarm prewarm;
+    // set once the panel has been opened, logins only warm up for users who actually use the panel
+    static final String PANEL_OPENED_KEY = "panelOpened";
+
+    // let the login load settle before warming anything
+    private static final int PREWARM_DELAY_TICKS = 5;
+    // capture without the mapping at the latest this many ticks after the downloads started
+    private static final int PREWARM_MAPPING_WAIT_TICKS = 20;
+    private static final int PREWARM_ICONS_PER_TICK = 8;
 
     @Override
     protected void startUp() throws Exception {
-        // load item database for membership filtering
-        itemDatabaseService.refreshDatabase()
-                .whenComplete((result, throwable) -> {
-                    if (throwable != null) {
-                        log.warn("Failed to load item database on startup: {}", throwable.getMessage());
-                    } else {
-                        log.info("Item database loaded successfully with {} items", itemDatabaseService.getCacheSize());
-                    }
-                });
-
+        reloadProfiles();
+        // watch alerts fire without the panel, the saved watches are a single small config value
+        watchlistService.load();
+        outcomeLog.start();
+        // enabled mid-session, there won't be a login to load the account's limits on
         if (client.getGameState() == GameState.LOGGED_IN) {
-            onLoginOrActivated();
+            buyLimitLedger.load();
         }
+        iconCache = cacheBudget.register("icons", 0.25, image -> (long) image.getWidth() * image.getHeight() * 4);
 
-        // create UI panel and navigation button
+        // only register the navigation button, metadata and panel contents load on first use
         panel = new AlchCopilotPanel(this, client, itemManager);
         final BufferedImage icon = ImageUtil.loadImageResource(getClass(), "/icon.png");
 
@@ -85,345 +149,491 @@ public class AlchCopilotPlugin extends Plugin {
         clientToolbar.addNavigation(navButton);
     }
 
+    // called the first time the panel is opened, prefetch metadata and run the deferred initial search
+    void onPanelOpened() {
+        itemMappingService.load();
+        // the outcome log rebuilds its index from disk, keep that off the client thread
+        CompletableFuture.runAsync(outcomeLog::load);
+        if (!hasOpenedPanelBefore()) {
+            configManager.setConfiguration("AlchCopilotPlugin", PANEL_OPENED_KEY, "true");
+        }
+        readyForOptimalUpdate = true;
+    }
+
+    // whether the panel was opened in an earlier session
+    private boolean hasOpenedPanelBefore() {
+        return Boolean.parseBoolean(configManager.getConfiguration("AlchCopilotPlugin", PANEL_OPENED_KEY));
+    }
+
     // trigger search for new items to add to existing list
     public void findNewOptimalItem() {
         findingNewItem = true;
         readyForOptimalUpdate = true;
-        searchInProgress = false;
+        // start over even if the last round never finished, once abandoned none of its late results are published
+        searchRounds.abandon();
     }
 
-    // main search logic - finds optimal alch items based on config criteria
+    // main search logic - finds optimal alch items for every profile in one scan
     private void executeOptimalAlchItemSearch(boolean isNewItemSearch) {
-        if (searchInProgress) {
+        if (searchRounds.isRunning()) {
             log.debug("Search already in progress, skipping duplicate request");
             return;
         }
 
-        searchInProgress = true;
-        log.info("Starting optimal alch item search... (isNewItemSearch: {}, excluded items: {}, membership filter: {})",
-                isNewItemSearch, recommendedItemIds.size(), config.membershipFilter());
-
-        // get all item prices and nature rune cost
-        List<ItemPrice> itemPrices = this.itemManager.search("");
-        int natureRunePrice = this.itemManager.getItemPrice(net.runelite.api.gameval.ItemID.NATURERUNE);
+        List<SearchProfile> searchProfiles = getProfiles();
+        log.info("Starting optimal alch item search... (isNewItemSearch: {}, profiles: {})",
+                isNewItemSearch, searchProfiles.size());
+
+        // capture prices and metadata on the client thread and publish them as the current market
+        MarketSnapshot market = marketState.publishItems(ItemTable.capture(clientItemDataSource));
+        ItemTable itemTable = market.getItems();
+        holdingsScanner.updatePrices(itemTable);
+        watchlistService.evaluate(itemTable);
+        long volumeVersion = volumeChecker.getSnapshotVersion();
+        // the whole search, across every tier, has to finish within the configured budget
+        long deadline = System.currentTimeMillis() + config.searchTimeBudget() * 1000L;
+
+        // profiles whose prices, volumes, criteria and exclusions are unchanged reuse their last result
+        List<ProfileSearch> searches = new ArrayList<>();
+        List<SearchCriteria> criteriaList = new ArrayList<>();
+        List<Set<Integer>> excludedItemIds = new ArrayList<>();
+        for (SearchProfile profile : searchProfiles) {
+            RecommendationList recommendations = getRecommendations(profile.getName());
+            Set<Integer> excluded = isNewItemSearch ? recommendations.getItemIds() : Collections.emptySet();
+            SearchMemo.Key memoKey = new SearchMemo.Key(profile.getCriteria(), itemTable.getVersion(), volumeVersion, excluded);
+            ProfileSearch search = new ProfileSearch(profile, market, recommendations, memoKey, deadline,
+                    tierHistory.tiersFor(profile.getCriteria()));
+
+            SearchMemo.Hit<MemoizedResult> hit = searchMemo.get(memoKey);
+            if (hit != null) {
+                log.info("Inputs unchanged for profile {}, reusing previous result", profile.getName());
+                if (hit.value.item != null) {
+                    addRecommendation(search, hit.value.item, hit.value.volumeData);
+                }
+                continue;
+            }
 
-        List<AlchItem> candidates = new ArrayList<>();
-        int skippedDuplicates = 0;
-        int skippedMembership = 0;
+            searches.add(search);
+            criteriaList.add(profile.getCriteria());
+            excludedItemIds.add(excluded);
+        }
 
-        // filter items based on config criteria
-        for (ItemPrice price : itemPrices) {
-            int itemId = price.getId();
+        if (searches.isEmpty()) {
+            readyForOptimalUpdate = false;
+            panel.updateItemList();
+            return;
+        }
 
-            // skip items we already recommended if looking for new items
-            if (isNewItemSearch && recommendedItemIds.contains(itemId)) {
-                skippedDuplicates++;
-                continue;
-            }
+        // filter every remaining profile in one pass
+        List<AlchSearchEngine.ScanResult> scanResults = searchEngine.scanProfiles(itemTable, criteriaList, excludedItemIds);
+        PriceIndicators priceIndicators = volumeChecker.getPriceIndicators();
+        SearchRounds.Round round = searchRounds.begin(searches.size());
+        for (ProfileSearch search : searches) {
+            search.round = round;
+            activeSearches.put(search.profile.getName(), search);
+        }
 
-            // apply membership filter
-            if (!passesMembershipFilter(itemId)) {
-                skippedMembership++;
-                continue;
+        for (int p = 0; p < searches.size(); p++) {
+            ProfileSearch search = searches.get(p);
+            AlchSearchEngine.ScanResult scanResult = scanResults.get(p);
+            search.scanResult = scanResult;
+
+            // candidates arrive sorted by profit, icons are shared between profiles and searches
+            for (Candidate candidate : scanResult.candidates) {
+                AlchItem item = new AlchItem(candidate.getName(), candidate.getItemId(), candidate.getPrice(),
+                        candidate.getHighAlchPrice(), candidate.getProfit(), candidate.getGeLimit(), getIcon(candidate));
+                item.setPriceTrend(priceIndicators.getTrend(candidate.getItemId()));
+                search.candidates.add(item);
+                search.itemsById.put(item.getItemId(), item);
             }
 
-            ItemComposition itemComposition = this.itemManager.getItemComposition(itemId);
-            ItemStats itemStats = itemManager.getItemStats(itemId);
-            String name = price.getName();
+            log.info("Profile {}: found {} candidates after filtering, ranking top {} (skipped {} duplicates, {} membership filtered)",
+                    search.profile.getName(), scanResult.matched, search.candidates.size(),
+                    scanResult.skippedDuplicates, scanResult.skippedMembership);
 
-            if (itemStats == null || itemComposition == null || name.length() == 0) {
+            if (search.candidates.isEmpty()) {
+                log.warn("No suitable alch items found meeting criteria for profile {}", search.profile.getName());
+                searchRounds.publish(round, () -> memoize(search, null, null));
+                finishProfileSearch(search);
                 continue;
             }
 
-            // calculate profit and apply filters
-            int currentPrice = itemManager.getWikiPrice(price);
-            int highAlchPrice = itemComposition.getHaPrice();
-            int profit = highAlchPrice - currentPrice - natureRunePrice;
-            int geLimit = itemStats.getGeLimit();
+            executeSearch(search);
+        }
+    }
 
-            int recommendedQuantity = calculateOptimalQuantity(currentPrice, geLimit);
-            long totalCost = (long) recommendedQuantity * currentPrice;
+    // icon of a candidate at its buy limit, must be called on the client thread
+    private BufferedImage getIcon(Candidate candidate) {
+        return iconCache.computeIfAbsent(((long) candidate.getItemId() << 32) | candidate.getGeLimit(),
+                key -> itemManager.getImage(candidate.getItemId(), candidate.getGeLimit(), false));
+    }
 
-            // apply config-based filters
-            if (profit < config.minimumProfit() ||
-                    geLimit < config.minimumGeLimit() ||
-                    (config.maxPrice() > 0 && currentPrice > config.maxPrice()) ||
-                    (config.maxTotalPrice() > 0 && totalCost > config.maxTotalPrice())) {
-                continue;
-            }
+    // one profile's in-flight search
+    private static class ProfileSearch {
+        final SearchProfile profile;
+        // the prices the candidates were ranked on, volumes are merged into it once they land
+        final MarketSnapshot market;
+        AlchSearchEngine.ScanResult scanResult;
+        // the scan's candidates as panel items, in the same order
+        final List<AlchItem> candidates = new ArrayList<>();
+        final Map<Integer, AlchItem> itemsById = new HashMap<>();
+        final RecommendationList recommendations;
+        final SearchMemo.Key memoKey;
+        final long deadline;
+        // candidates to check and whether to check volume, per tier
+        final int[][] tiers;
+        // the round this search counts towards
+        SearchRounds.Round round;
+        // candidates of the first volume tier, shown in the panel while the search runs
+        volatile List<AlchItem> liveCandidates = Collections.emptyList();
+        final Map<Integer, Double> liveScores = new ConcurrentHashMap<>();
+
+        ProfileSearch(SearchProfile profile, MarketSnapshot market, RecommendationList recommendations,
+                      SearchMemo.Key memoKey, long deadline, int[][] tiers) {
+            this.profile = profile;
+            this.market = market;
+            this.recommendations = recommendations;
+            this.memoKey = memoKey;
+            this.deadline = deadline;
+            this.tiers = tiers;
+        }
+    }
 
-            BufferedImage image = itemManager.getImage(itemId, geLimit, false);
-            candidates.add(new AlchItem(name, itemId, currentPrice, highAlchPrice, profit, geLimit, image));
+    // outcome of a completed search, a null item means nothing qualified
+    private static class MemoizedResult {
+        final AlchItem item;
+        final VolumeChecker.VolumeData volumeData;
+
+        MemoizedResult(AlchItem item, VolumeChecker.VolumeData volumeData) {
+            this.item = item;
+            this.volumeData = volumeData;
         }
+    }
 
-        log.info("Found {} candidates after filtering (skipped {} duplicates, {} membership filtered)",
-                candidates.size(), skippedDuplicates, skippedMembership);
+    // remember a complete result against the volume data the search actually ended up using
+    private void memoize(ProfileSearch search, AlchItem item, VolumeChecker.VolumeData volumeData) {
+        searchMemo.put(search.memoKey.withVolumeVersion(volumeChecker.getSnapshotVersion()),
+                new MemoizedResult(item, volumeData));
+    }
 
-        if (candidates.isEmpty()) {
-            log.warn("No suitable alch items found meeting criteria");
-            SwingUtilities.invokeLater(() -> panel.updateItemList());
+    // called once per profile, the search is over when every profile has finished
+    private void finishProfileSearch(ProfileSearch search) {
+        activeSearches.remove(search.profile.getName(), search);
+        if (searchRounds.finish(search.round)) {
             readyForOptimalUpdate = false;
-            searchInProgress = false;
+            panel.updateItemList();
+        }
+    }
+
+    // rank a profile's candidates through the search engine, the volume tiers score against one market snapshot
+    // so a recommendation never mixes volumes from different moments
+    private void executeSearch(ProfileSearch search) {
+        int volumeTier = firstVolumeTier(search.tiers);
+        long remainingMillis = search.deadline - System.currentTimeMillis();
+        if (volumeTier < 0 || remainingMillis <= 0) {
+            if (volumeTier >= 0) {
+                log.info("Search deadline reached for profile {} - skipping volume check", search.profile.getName());
+            }
+            selectCandidate(search, null);
             return;
         }
 
-        searchWithProgressiveFallback(candidates, isNewItemSearch);
+        // show the profit-ranked tier straight away, volumes fill in once the market snapshot lands
+        search.liveScores.clear();
+        search.liveCandidates = new ArrayList<>(search.candidates.subList(0,
+                Math.min(search.tiers[volumeTier][0], search.candidates.size())));
+        panel.requestRefresh();
+
+        // a snapshot that hasn't landed by the deadline means profit-only scoring
+        volumeChecker.refresh()
+                .completeOnTimeout(null, remainingMillis, TimeUnit.MILLISECONDS)
+                .thenAccept(latest -> selectCandidate(search, latest != null ? search.market.withVolumesOf(latest) : null))
+                .exceptionally(throwable -> {
+                    log.warn("Error ranking candidates for profile {}: {}", search.profile.getName(), throwable.getMessage());
+                    finishProfileSearch(search);
+                    return null;
+                });
     }
 
-    // check if item passes membership requirement filter
-    private boolean passesMembershipFilter(int itemId) {
-        AlchCopilotConfig.MembershipFilter filter = config.membershipFilter();
-
-        if (filter == AlchCopilotConfig.MembershipFilter.BOTH) {
-            return true;
+    // learn where the winner sits from the engine's fixed-width probe rather than from the tiers that were used,
+    // so a first tier that shrank can grow again. nothing to learn without volumes
+    private void recordTierOutcome(ProfileSearch search, MarketSnapshot market, AlchSearchEngine.SearchResult result) {
+        if (market == null || market.getFiveMinute() == null) {
+            return;
         }
 
-        Boolean isMembers = itemDatabaseService.getMembershipStatusSync(itemId);
-
-        if (isMembers == null) {
-            return true;
+        if (result.probeRank >= 0) {
+            tierHistory.recordHit(search.profile.getCriteria(), result.probeRank);
+        } else {
+            tierHistory.recordMiss(search.profile.getCriteria());
         }
+    }
 
-        switch (filter) {
-            case F2P:
-                return !isMembers;
-            case P2P:
-                return isMembers;
-            case BOTH:
-            default:
-                return true;
+    private static int firstVolumeTier(int[][] tiers) {
+        for (int tier = 0; tier < tiers.length; tier++) {
+            if (tiers[tier][1] == 1) {
+                return tier;
+            }
         }
+        return -1;
     }
 
-    // try multiple search strategies with fallback if no items found
-    private void searchWithProgressiveFallback(List<AlchItem> candidates, boolean isNewItemSearch) {
-        // gp/hour = profit per alch * alchs per hour (1200 alchs/hour at 3 seconds per alch)
-        final double ALCHS_PER_HOUR = 3600.0 / 3.0;
+    // pick the profile's recommendation against the search's own prices and the refreshed volumes,
+    // a null market means the volumes timed out and the result is partial
+    private void selectCandidate(ProfileSearch search, MarketSnapshot market) {
+        boolean timedOut = market == null && firstVolumeTier(search.tiers) >= 0;
+        AlchSearchEngine.VolumeLookup volumes = itemId -> {
+            VolumeChecker.VolumeData volumeData = market != null ? market.getVolumeData(itemId) : null;
+            return volumeData != null ? volumeData.getEstimatedDailyVolume() : -1;
+        };
+        AlchSearchEngine.Scorer scorer = (candidate, dailyVolume) ->
+                search.itemsById.get(candidate.getItemId()).score(dailyVolume);
+        AlchSearchEngine.SearchResult result = searchEngine.select(search.scanResult, search.profile.getCriteria(),
+                search.tiers, volumes, scorer);
+
+        // the panel shows the volumes and scores of everything that was checked
+        for (AlchItem candidate : search.candidates.subList(0, result.volumeChecked)) {
+            VolumeChecker.VolumeData volumeData = market != null ? market.getVolumeData(candidate.getItemId()) : null;
+            if (volumeData != null) {
+                candidate.setVolumeData(volumeData);
+                search.liveScores.put(candidate.getItemId(), candidate.score(volumeData));
+            }
+        }
+        panel.requestRefresh();
+
+        if (result.best == null) {
+            log.warn("All search tiers exhausted for profile {} - no suitable items found", search.profile.getName());
+            searchRounds.publish(search.round, () -> {
+                if (!timedOut) {
+                    memoize(search, null, null);
+                }
+                recordTierOutcome(search, market, result);
+            });
+            finishProfileSearch(search);
+            return;
+        }
 
-        candidates.sort((item1, item2) -> {
-            double gpPerHour1 = item1.getHighAlchProfit() * ALCHS_PER_HOUR;
-            double gpPerHour2 = item2.getHighAlchProfit() * ALCHS_PER_HOUR;
-            return Double.compare(gpPerHour2, gpPerHour1); // descending order
+        int rank = search.scanResult.candidates.indexOf(result.best);
+        AlchItem bestItem = search.candidates.get(rank);
+        boolean volumeTier = search.tiers[result.tier][1] == 1;
+        VolumeChecker.VolumeData bestVolume = volumeTier ? bestItem.getVolumeData() : null;
+        bestItem.setPartial(timedOut);
+        // a round abandoned while its volumes were loading must not add to the lists of the one replacing it
+        boolean published = searchRounds.publish(search.round, () -> {
+            addRecommendation(search, bestItem, bestVolume);
+            if (!timedOut) {
+                memoize(search, bestItem, bestVolume);
+            }
+            recordTierOutcome(search, market, result);
         });
+        if (!published) {
+            log.info("Search round for profile {} was abandoned, dropping {}", search.profile.getName(), bestItem.getName());
+            finishProfileSearch(search);
+            return;
+        }
 
-        // search tiers: [candidates to check, check volume (1=yes, 0=no)]
-        int[][] searchTiers = {
-                {8, 1},   // top 8 with volume check
-                {15, 1},  // top 15 with volume check
-                {25, 0},  // top 25 without volume check
-                {50, 0}   // top 50 without volume check
-        };
+        String volumeInfo = bestVolume != null ?
+                String.format("Daily volume: %d (market snapshot %d)", bestVolume.getEstimatedDailyVolume(), market.getVersion()) :
+                timedOut ? "Volume timed out" : "No volume data";
+        log.info("Selected item from tier {} for profile {}: {} (Profit: {} gp/alch, {})", result.tier + 1,
+                search.profile.getName(), bestItem.getName(), bestItem.getHighAlchProfit(), volumeInfo);
 
-        executeSearchTier(candidates, isNewItemSearch, searchTiers, 0);
+        finishProfileSearch(search);
     }
 
-    // execute search for a specific tier with optional volume checking
-    private void executeSearchTier(List<AlchItem> candidates, boolean isNewItemSearch, int[][] searchTiers, int tierIndex) {
-        if (tierIndex >= searchTiers.length) {
-            log.warn("All search tiers exhausted - no suitable items found");
-            readyForOptimalUpdate = false;
-            searchInProgress = false;
-            SwingUtilities.invokeLater(() -> panel.updateItemList());
+    // add item to the profile's recommendations list, avoiding duplicates
+    private void addRecommendation(ProfileSearch search, AlchItem item, VolumeChecker.VolumeData volumeData) {
+        if (!search.recommendations.add(item, volumeData, config.maxRecommendations())) {
+            log.debug("Item {} already recommended, skipping duplicate", item.getName());
             return;
         }
 
-        int candidatesToCheck = Math.min(searchTiers[tierIndex][0], candidates.size());
-        boolean checkVolume = searchTiers[tierIndex][1] == 1;
+        log.info("Added recommendation for profile {}: {} (Total recommendations: {})",
+                search.profile.getName(), item.getName(), search.recommendations.size());
+        CompletableFuture.runAsync(() -> outcomeLog.recordRecommendation(item, volumeData));
+    }
 
-        log.info("Executing search tier {} - checking {} candidates (check volume: {})",
-                tierIndex + 1, candidatesToCheck, checkVolume);
+    // remove specific item from the active profile's recommendations
+    public void removeRecommendation(AlchItem item) {
+        getRecommendations(activeProfile).remove(item);
+    }
 
-        List<AlchItem> tierCandidates = candidates.subList(0, candidatesToCheck);
+    // clear the active profile's recommendations
+    public void clearRecommendations() {
+        getRecommendations(activeProfile).clear();
+    }
 
-        // if no volume check needed, just pick the best profit item
-        if (!checkVolume) {
-            if (!tierCandidates.isEmpty()) {
-                AlchItem bestItem = tierCandidates.get(0);
-                addRecommendation(bestItem, null);
+    // quantity to buy with what is left of the item's limit right now, not when it was recommended
+    public int calculateRecommendedQuantity(AlchItem item) {
+        return AlchSearchEngine.calculateQuantity(getActiveCriteria(), item.getGePrice(), getRemainingLimit(item));
+    }
 
-                log.info("Selected item from tier {} (no volume check): {} (Profit: {} gp/alch)",
-                        tierIndex + 1, bestItem.getName(), bestItem.getHighAlchProfit());
+    // how past recommendations of the item did over the last 30 days, null if it had none
+    public OutcomeLog.ItemOutcome getRecentOutcome(AlchItem item) {
+        return outcomeLog.getRecentOutcome(item.getItemId());
+    }
 
-                readyForOptimalUpdate = false;
-                searchInProgress = false;
-                SwingUtilities.invokeLater(() -> panel.updateItemList());
-            } else {
-                executeSearchTier(candidates, isNewItemSearch, searchTiers, tierIndex + 1);
-            }
-            return;
-        }
+    public int getRemainingLimit(AlchItem item) {
+        return buyLimitLedger.getRemainingLimit(item.getItemId(), item.getGeLimit());
+    }
 
-        // perform volume checks on all candidates in this tier
-        AtomicInteger completed = new AtomicInteger(0);
-        List<CompletableFuture<ScoredItem>> futures = new ArrayList<>();
-
-        for (AlchItem candidate : tierCandidates) {
-            CompletableFuture<ScoredItem> future = volumeChecker
-                    .checkVolume(candidate.getItemId())
-                    .thenApply(volumeData -> {
-                        int progress = completed.incrementAndGet();
-                        log.debug("Volume check {}/{} (tier {}): {} - {} daily volume",
-                                progress, tierCandidates.size(), tierIndex + 1,
-                                candidate.getName(), volumeData.getEstimatedDailyVolume());
-
-                        // score items based on profit and volume
-                        double profitScore = candidate.getHighAlchProfit() / 1000.0;
-                        double volumeScore = Math.min(Math.log10(volumeData.getEstimatedDailyVolume() + 1) / 6.0, 1.0);
-                        double totalScore = (0.6 * profitScore) + (0.4 * volumeScore);
-
-                        return new ScoredItem(candidate, volumeData, totalScore);
-                    })
-                    .exceptionally(throwable -> {
-                        log.warn("Error checking volume for {}: {}", candidate.getName(), throwable.getMessage());
-                        return new ScoredItem(candidate, null, candidate.getHighAlchProfit() / 1000.0);
-                    });
-
-            futures.add(future);
-        }
-
-        // wait for all volume checks to complete and pick best item
-        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
-                .thenRun(() -> {
-                    ScoredItem bestItem = null;
-                    double bestScore = -1;
-
-                    for (CompletableFuture<ScoredItem> future : futures) {
-                        try {
-                            ScoredItem scoredItem = future.get();
-
-                            // apply volume filter
-                            if (!passesVolumeFilter(scoredItem.volumeData)) {
-                                log.debug("Item {} filtered out by volume requirement",
-                                        scoredItem.item.getName());
-                                continue;
-                            }
-
-                            if (scoredItem.score > bestScore) {
-                                bestItem = scoredItem;
-                                bestScore = scoredItem.score;
-                            }
-                        } catch (Exception e) {
-                            log.warn("Error processing volume data: {}", e.getMessage());
-                        }
-                    }
-
-                    if (bestItem != null) {
-                        addRecommendation(bestItem.item, bestItem.volumeData);
-
-                        String volumeInfo = bestItem.volumeData != null ?
-                                String.format("Daily volume: %d", bestItem.volumeData.getEstimatedDailyVolume()) :
-                                "No volume data";
-                        log.info("Selected item from tier {}: {} (Profit: {} gp/alch, {})",
-                                tierIndex + 1, bestItem.item.getName(), bestItem.item.getHighAlchProfit(), volumeInfo);
-
-                        readyForOptimalUpdate = false;
-                        searchInProgress = false;
-                        SwingUtilities.invokeLater(() -> panel.updateItemList());
-                    } else {
-                        log.info("No items found in tier {} that meet volume requirements - trying next tier", tierIndex + 1);
-                        executeSearchTier(candidates, isNewItemSearch, searchTiers, tierIndex + 1);
-                    }
-                });
+    // default profile from the selection settings followed by any named profiles
+    public List<SearchProfile> getProfiles() {
+        return profiles;
     }
 
-    // filter items based on volume requirements after volume checks are complete
-    private boolean passesVolumeFilter(VolumeChecker.VolumeData volumeData) {
-        if (config.minimumVolumePerHour() <= 0) {
-            return true; // filter disabled
+    private void reloadProfiles() {
+        SearchCriteria defaults = criteriaFromConfig();
+        List<SearchProfile> loaded = new ArrayList<>();
+        loaded.add(new SearchProfile(SearchProfile.DEFAULT_NAME, defaults));
+        loaded.addAll(SearchProfile.parse(config.profiles(), defaults));
+        profiles = Collections.unmodifiableList(loaded);
+
+        // forget results of profiles that no longer exist
+        Set<String> names = new HashSet<>();
+        for (SearchProfile profile : loaded) {
+            names.add(profile.getName());
         }
-
-        if (volumeData == null) {
-            return true; // no volume data available, allow through
+        recommendationsByProfile.keySet().retainAll(names);
+        if (!names.contains(activeProfile)) {
+            activeProfile = SearchProfile.DEFAULT_NAME;
         }
+    }
 
-        double hourlyVolume = volumeData.getEstimatedDailyVolume() / 24.0;
-        return hourlyVolume >= config.minimumVolumePerHour();
+    public String getActiveProfile() {
+        return activeProfile;
     }
 
-    // wrapper class for items with volume data and calculated scores
-    private static class ScoredItem {
-        final AlchItem item;
-        final VolumeChecker.VolumeData volumeData;
-        final double score;
+    // switch the panel to another profile's results, no rescan needed
+    public void setActiveProfile(String name) {
+        activeProfile = name;
+    }
 
-        ScoredItem(AlchItem item, VolumeChecker.VolumeData volumeData, double score) {
-            this.item = item;
-            this.volumeData = volumeData;
-            this.score = score;
+    private SearchCriteria getActiveCriteria() {
+        for (SearchProfile profile : profiles) {
+            if (profile.getName().equals(activeProfile)) {
+                return profile.getCriteria();
+            }
         }
+        return criteriaFromConfig();
     }
 
-    // add item to recommendations list, avoiding duplicates
-    private void addRecommendation(AlchItem item, VolumeChecker.VolumeData volumeData) {
-        if (recommendedItemIds.contains(item.getItemId())) {
-            log.debug("Item {} already recommended, skipping duplicate", item.getName());
-            return;
+    // selection settings of the default profile
+    private SearchCriteria criteriaFromConfig() {
+        return new SearchCriteria(config.minimumProfit(), config.minimumGeLimit(), config.maxPrice(),
+                config.maxTotalPrice(), config.minimumVolumePerHour(),
+                MembershipFilter.valueOf(config.membershipFilter().name()));
+    }
+
+    // every item passing the active profile's filters at the last captured prices, best profit first.
+    // only called on the EDT, re-ranked when the prices or the active criteria change
+    public List<Candidate> getRankedCandidates() {
+        ItemTable table = marketState.get().getItems();
+        if (table == null) {
+            return Collections.emptyList();
         }
 
-        if (volumeData != null) {
-            item.setVolumeData(volumeData);
+        SearchCriteria criteria = getActiveCriteria();
+        if (table != rankedTable || !criteria.equals(rankedCriteria)) {
+            rankedCandidates = Collections.unmodifiableList(searchEngine.rankAll(table, criteria));
+            rankedTable = table;
+            rankedCriteria = criteria;
         }
+        return rankedCandidates;
+    }
 
-        // add item and re-sort by gp/hour
-        recommendations.add(item);
-        recommendedItemIds.add(item.getItemId());
+    private RecommendationList getRecommendations(String profileName) {
+        return recommendationsByProfile.computeIfAbsent(profileName, name -> new RecommendationList());
+    }
 
-        // sort recommendations by gp/hour (descending)
-        final double ALCHS_PER_HOUR = 3600.0 / 3.0; // 1200 alchs per hour
-        recommendations.sort((item1, item2) -> {
-            double gpPerHour1 = item1.getHighAlchProfit() * ALCHS_PER_HOUR;
-            double gpPerHour2 = item2.getHighAlchProfit() * ALCHS_PER_HOUR;
-            return Double.compare(gpPerHour2, gpPerHour1); // Descending order
-        });
+    @Override
+    protected void shutDown() throws Exception {
+        clientToolbar.removeNavigation(navButton);
+        cacheBudget.logStats();
+        searchMemo.clear();
+        activeSearches.clear();
+        searchRounds.abandon();
+        prewarm = null;
+        holdingsScanner.clear();
+        watchlistService.clearPrices();
+        marketState.clear();
+        rankedCandidates = Collections.emptyList();
+        rankedTable = null;
+        outcomeLog.shutdown();
+        buyLimitLedger.unload();
+        singleFlightFetcher.shutdown();
+        volumeChecker.shutdown();
+    }
 
-        // trim list to max size (remove from end since list is sorted)
-        while (recommendations.size() > config.maxRecommendations()) {
-            AlchItem removed = recommendations.remove(recommendations.size() - 1);
-            recommendedItemIds.remove(removed.getItemId());
+    @Subscribe
+    public void onGameStateChanged(GameStateChanged gameStateChanged) {
+        if (gameStateChanged.getGameState() == GameState.LOGGED_IN) {
+            // limits are per account, read them before anything is captured
+            if (!buyLimitLedger.isLoaded()) {
+                buyLimitLedger.load();
+            }
+            onLoginOrActivated();
+            // loading screens log in again, only the first login of a session starts warming. a login never
+            // downloads, captures or loads icons for someone who has never opened the panel
+            if (prewarm == null && (panel.isInitialized() || hasOpenedPanelBefore())) {
+                prewarm = new Prewarm();
+            }
+        } else if (gameStateChanged.getGameState() == GameState.LOGIN_SCREEN) {
+            holdingsScanner.clear();
+            buyLimitLedger.unload();
+            cancelPrewarm();
         }
-
-        log.info("Added recommendation: {} (Total recommendations: {})", item.getName(), recommendations.size());
     }
 
-    // remove specific item from recommendations
-    public void removeRecommendation(AlchItem item) {
-        recommendations.remove(item);
-        recommendedItemIds.remove(item.getItemId());
-    }
+    // purchases count against the item's limit, the next capture filters and sizes with what is left
+    @Subscribe
+    public void onGrandExchangeOfferChanged(GrandExchangeOfferChanged event) {
+        if (client.getGameState() != GameState.LOGGED_IN) {
+            return;
+        }
 
-    // clear all recommendations
-    public void clearRecommendations() {
-        recommendations.clear();
-        recommendedItemIds.clear();
+        if (buyLimitLedger.onOfferChanged(event.getSlot(), event.getOffer())) {
+            panel.requestRefresh();
+        }
     }
 
-    // calculate how many items to buy based on GE limit and total cost constraints
-    private int calculateOptimalQuantity(int itemPrice, int geLimit) {
-        int quantity = geLimit;
+    // only the changed slots of the inventory or bank are re-evaluated
+    @Subscribe
+    public void onItemContainerChanged(ItemContainerChanged event) {
+        int containerId = event.getContainerId();
+        if (!config.showHoldings() || (containerId != InventoryID.INV && containerId != InventoryID.BANK)) {
+            return;
+        }
 
-        // limit by total investment if configured
-        if (config.maxTotalPrice() > 0) {
-            int maxByTotalPrice = config.maxTotalPrice() / itemPrice;
-            quantity = Math.min(quantity, maxByTotalPrice);
+        // the first event of a session needs prices before anything can be ranked
+        if (!holdingsScanner.hasPrices()) {
+            holdingsScanner.updatePrices(marketState.publishItems(ItemTable.capture(clientItemDataSource)).getItems());
         }
 
-        return Math.max(1, quantity);
+        if (holdingsScanner.onContainerChanged(containerId, event.getItemContainer())) {
+            panel.requestRefresh();
+        }
     }
 
-    public int calculateRecommendedQuantity(int itemPrice, int geLimit) {
-        return calculateOptimalQuantity(itemPrice, geLimit);
+    public List<Holding> getHoldings() {
+        return holdingsScanner.getHoldings();
     }
 
-    @Override
-    protected void shutDown() throws Exception {
-        clientToolbar.removeNavigation(navButton);
+    public List<Watch> getWatches() {
+        return watchlistService.getWatches();
     }
 
-    @Subscribe
-    public void onGameStateChanged(GameStateChanged gameStateChanged) {
-        if (gameStateChanged.getGameState() == GameState.LOGGED_IN) {
-            onLoginOrActivated();
-        }
+    public void addWatch(AlchItem item, int targetProfit) {
+        watchlistService.add(item.getItemId(), item.getName(), targetProfit);
+    }
+
+    public void removeWatch(Watch watch) {
+        watchlistService.remove(watch);
+    }
+
+    // last checked profit per alch, null until the item has been priced
+    public Integer getWatchedProfit(int itemId) {
+        return watchlistService.getLastProfit(itemId);
     }
 
     @Provides
@@ -434,23 +644,159 @@ public class AlchCopilotPlugin extends Plugin {
     // trigger search when conditions are met
     @Subscribe
     public void onGameTick(GameTick event) {
-        if (readyForOptimalUpdate && client.getGameState() == GameState.LOGGED_IN && !searchInProgress) {
+        if (readyForOptimalUpdate && client.getGameState() == GameState.LOGGED_IN && !searchRounds.isRunning()) {
             executeOptimalAlchItemSearch(findingNewItem);
+        } else if (prewarm != null && !prewarm.isDone() && !readyForOptimalUpdate && !searchRounds.isRunning()) {
+            advancePrewarm();
+        }
+
+        if (++ticksSinceWatchCheck >= WATCH_CHECK_TICKS && !watchlistService.isEmpty()) {
+            ticksSinceWatchCheck = 0;
+            watchlistService.checkLivePrices();
+            panel.requestRefresh();
+        }
+    }
+
+    @Subscribe
+    public void onConfigChanged(ConfigChanged event) {
+        if (event.getGroup().equals("AlchCopilotPlugin")) {
+            // the watchlist, the buy limit ledger and the panel flag save themselves, nothing to reload
+            if (WatchlistService.CONFIG_KEY.equals(event.getKey()) || BuyLimitLedger.CONFIG_KEY.equals(event.getKey())
+                    || PANEL_OPENED_KEY.equals(event.getKey())) {
+                return;
+            }
+
+            reloadProfiles();
+            searchMemo.clear();
+            cacheBudget.refresh();
+            panel.updateItemList();
         }
     }
 
+    // candidates the active profile's search is still checking, scored ones first by score then the rest by profit
+    public List<AlchItem> getLiveCandidates() {
+        ProfileSearch search = activeSearches.get(activeProfile);
+        if (search == null) {
+            return Collections.emptyList();
+        }
+
+        List<AlchItem> live = new ArrayList<>(search.liveCandidates);
+        Map<Integer, Double> scores = search.liveScores;
+        live.sort((a, b) -> {
+            Double scoreA = scores.get(a.getItemId());
+            Double scoreB = scores.get(b.getItemId());
+            if (scoreA != null && scoreB != null) {
+                return Double.compare(scoreB, scoreA);
+            }
+            if (scoreA != null || scoreB != null) {
+                return scoreA != null ? -1 : 1;
+            }
+            return Integer.compare(b.getHighAlchProfit(), a.getHighAlchProfit());
+        });
+        return live;
+    }
+
     public List<AlchItem> getAlchItems() {
-        return new ArrayList<>(recommendations);
+        return getRecommendations(activeProfile).getItems();
     }
 
     public boolean hasRecommendations() {
-        return !recommendations.isEmpty();
+        return !getRecommendations(activeProfile).isEmpty();
     }
 
     // auto-search on login if configured
     private void onLoginOrActivated() {
-        if (config.refreshOnLogin()) {
+        if (!config.refreshOnLogin()) {
+            return;
+        }
+
+        // before the panel has been opened the initial search is deferred to onPanelOpened
+        if (panel.isInitialized()) {
             readyForOptimalUpdate = true;
         }
     }
-}
\ No newline at end of file
+
+    // the steps of warming the caches a search reads, from the downloads to the icons of its candidates
+    private enum PrewarmStage {
+        WAITING,
+        DOWNLOADING,
+        RANKING,
+        ICONS,
+        DONE
+    }
+
+    private static class Prewarm {
+        PrewarmStage stage = PrewarmStage.WAITING;
+        int ticks = 0;
+        final Deque<Candidate> icons = new ArrayDeque<>();
+
+        boolean isDone() {
+            return stage == PrewarmStage.DONE;
+        }
+    }
+
+    // one small step per game tick, so warming never adds more than a scan or a handful of icons to a tick.
+    // a search started meanwhile pauses it and warms whatever it needs itself
+    private void advancePrewarm() {
+        Prewarm warm = prewarm;
+        warm.ticks++;
+
+        switch (warm.stage) {
+            case WAITING:
+                if (warm.ticks < PREWARM_DELAY_TICKS) {
+                    return;
+                }
+
+                // downloads go out at background priority, they never hold up a request the user is waiting on
+                log.debug("Prewarming caches after login");
+                itemMappingService.load();
+                volumeChecker.prewarm();
+                warm.ticks = 0;
+                warm.stage = PrewarmStage.DOWNLOADING;
+                return;
+
+            case DOWNLOADING:
+                // without the mapping the scan falls back to a client lookup per item, worth a few ticks' wait
+                if (!itemMappingService.isLoaded() && warm.ticks < PREWARM_MAPPING_WAIT_TICKS) {
+                    return;
+                }
+
+                ItemTable itemTable = marketState.publishItems(ItemTable.capture(clientItemDataSource)).getItems();
+                holdingsScanner.updatePrices(itemTable);
+                warm.stage = PrewarmStage.RANKING;
+                return;
+
+            case RANKING:
+                // the candidates every profile would check first, in the order a search would load their icons
+                List<SearchCriteria> criteriaList = new ArrayList<>();
+                List<Set<Integer>> excludedItemIds = new ArrayList<>();
+                for (SearchProfile profile : getProfiles()) {
+                    criteriaList.add(profile.getCriteria());
+                    excludedItemIds.add(Collections.emptySet());
+                }
+                for (AlchSearchEngine.ScanResult scanResult :
+                        searchEngine.scanProfiles(marketState.get().getItems(), criteriaList, excludedItemIds)) {
+                    warm.icons.addAll(scanResult.candidates);
+                }
+                warm.stage = PrewarmStage.ICONS;
+                return;
+
+            case ICONS:
+                for (int i = 0; i < PREWARM_ICONS_PER_TICK && !warm.icons.isEmpty(); i++) {
+                    getIcon(warm.icons.poll());
+                }
+                if (warm.icons.isEmpty()) {
+                    log.debug("Prewarm finished");
+                    warm.stage = PrewarmStage.DONE;
+                }
+        }
+    }
+
+    // downloads already in flight still complete into their caches, nothing is started after this
+    private void cancelPrewarm() {
+        if (prewarm != null && !prewarm.isDone()) {
+            log.debug("Prewarm cancelled at {}", prewarm.stage);
+        }
+        prewarm = null;
+    }
+}
@@ -0,0 +1,54 @@
+package com.rcnoob.alchcopilot;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+// marks the panel dirty from any thread and rebuilds it at most once per frame, always from the latest state
+class PanelRefreshScheduler {
+
+    // ~60 refreshes per second at most
+    private static final int FRAME_MILLIS = 16;
+
+    private final Consumer<Boolean> refresh;
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    // sticky until the next refresh, so a progress update can't swallow a request to scroll to the top
+    private final AtomicBoolean scrollToTop = new AtomicBoolean();
+    // only touched on the EDT
+    private final Timer timer;
+    private long lastRefreshAt = 0;
+
+    PanelRefreshScheduler(Consumer<Boolean> refresh) {
+        this.refresh = refresh;
+        this.timer = new Timer(FRAME_MILLIS, e -> run());
+        this.timer.setRepeats(false);
+    }
+
+    // requests made while one is already pending are folded into it
+    void request(boolean scrollToTop) {
+        if (scrollToTop) {
+            this.scrollToTop.set(true);
+        }
+        if (dirty.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::schedule);
+        }
+    }
+
+    private void schedule() {
+        long wait = lastRefreshAt + FRAME_MILLIS - System.currentTimeMillis();
+        if (wait <= 0) {
+            run();
+        } else {
+            timer.setInitialDelay((int) wait);
+            timer.restart();
+        }
+    }
+
+    private void run() {
+        // cleared first so changes made during the rebuild schedule another one
+        dirty.set(false);
+        lastRefreshAt = System.currentTimeMillis();
+        refresh.accept(scrollToTop.getAndSet(false));
+    }
+}
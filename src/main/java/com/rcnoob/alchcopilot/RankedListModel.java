@@ -0,0 +1,108 @@
+package com.rcnoob.alchcopilot;
+
+import com.rcnoob.alchcopilot.engine.AlchSearchEngine;
+import com.rcnoob.alchcopilot.engine.Candidate;
+
+import javax.swing.AbstractListModel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+// sorted, filtered view over the full candidate ranking, the list only ever asks for the rows it paints
+class RankedListModel extends AbstractListModel<Candidate> {
+
+    enum SortOrder {
+        PROFIT("Profit per alch", AlchSearchEngine.BY_PROFIT),
+        LIMIT_PROFIT("Profit per limit", Comparator.comparingLong((Candidate c) -> (long) c.getProfit() * c.getRemainingLimit())
+                .reversed().thenComparingInt(Candidate::getItemId)),
+        PRICE("Price", Comparator.comparingInt(Candidate::getPrice).thenComparingInt(Candidate::getItemId)),
+        GE_LIMIT("GE limit", Comparator.comparingInt(Candidate::getGeLimit).reversed().thenComparingInt(Candidate::getItemId)),
+        NAME("Name", Comparator.comparing((Candidate c) -> c.getName().toLowerCase(Locale.ROOT)).thenComparingInt(Candidate::getItemId));
+
+        private final String displayName;
+        final Comparator<Candidate> comparator;
+
+        SortOrder(String displayName, Comparator<Candidate> comparator) {
+            this.displayName = displayName;
+            this.comparator = comparator;
+        }
+
+        @Override
+        public String toString() {
+            return displayName;
+        }
+    }
+
+    private List<Candidate> candidates = Collections.emptyList();
+    private List<Candidate> rows = Collections.emptyList();
+    private SortOrder sortOrder = SortOrder.PROFIT;
+    private String filter = "";
+
+    // replace the ranking, ignored when it's the same list as before
+    void setCandidates(List<Candidate> candidates) {
+        if (candidates != this.candidates) {
+            this.candidates = candidates;
+            apply();
+        }
+    }
+
+    void setSortOrder(SortOrder sortOrder) {
+        if (sortOrder != this.sortOrder) {
+            this.sortOrder = sortOrder;
+            apply();
+        }
+    }
+
+    // case-insensitive name filter
+    void setFilter(String filter) {
+        String normalized = filter.trim().toLowerCase(Locale.ROOT);
+        if (!normalized.equals(this.filter)) {
+            this.filter = normalized;
+            apply();
+        }
+    }
+
+    int getCandidateCount() {
+        return candidates.size();
+    }
+
+    @Override
+    public int getSize() {
+        return rows.size();
+    }
+
+    @Override
+    public Candidate getElementAt(int index) {
+        return rows.get(index);
+    }
+
+    // filter and sort once per change, then tell the list which rows moved
+    private void apply() {
+        List<Candidate> filtered = new ArrayList<>(candidates.size());
+        for (Candidate candidate : candidates) {
+            if (filter.isEmpty() || candidate.getName().toLowerCase(Locale.ROOT).contains(filter)) {
+                filtered.add(candidate);
+            }
+        }
+
+        // the ranking already arrives by profit
+        if (sortOrder != SortOrder.PROFIT) {
+            filtered.sort(sortOrder.comparator);
+        }
+
+        int oldSize = rows.size();
+        int newSize = filtered.size();
+        rows = filtered;
+
+        if (oldSize > newSize) {
+            fireIntervalRemoved(this, newSize, oldSize - 1);
+        } else if (newSize > oldSize) {
+            fireIntervalAdded(this, oldSize, newSize - 1);
+        }
+        if (Math.min(oldSize, newSize) > 0) {
+            fireContentsChanged(this, 0, Math.min(oldSize, newSize) - 1);
+        }
+    }
+}
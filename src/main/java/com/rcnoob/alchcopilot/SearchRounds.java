@@ -0,0 +1,61 @@
+package com.rcnoob.alchcopilot;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+// tracks the search round in progress. each round counts its own profiles down, so callbacks of an
+// abandoned round can never finish or corrupt the round that replaced it, and their results are dropped
+class SearchRounds {
+
+    static final class Round {
+        private final AtomicInteger pending;
+        // guarded by the round itself
+        private boolean abandoned;
+
+        private Round(int profiles) {
+            this.pending = new AtomicInteger(profiles);
+        }
+    }
+
+    private final AtomicReference<Round> current = new AtomicReference<>();
+
+    // start a round of the given number of profile searches, null while another round is running
+    Round begin(int profiles) {
+        if (profiles <= 0) {
+            throw new IllegalArgumentException("A round needs at least one profile");
+        }
+
+        Round round = new Round(profiles);
+        return current.compareAndSet(null, round) ? round : null;
+    }
+
+    // called once per profile search, true for exactly the call that completes a round still current
+    boolean finish(Round round) {
+        return round.pending.decrementAndGet() == 0 && current.compareAndSet(round, null);
+    }
+
+    // stop waiting on the current round, once this returns none of its results are published
+    void abandon() {
+        Round round = current.getAndSet(null);
+        if (round != null) {
+            synchronized (round) {
+                round.abandoned = true;
+            }
+        }
+    }
+
+    // publish a result of the round unless it was abandoned, false when the result was dropped
+    boolean publish(Round round, Runnable result) {
+        synchronized (round) {
+            if (round.abandoned) {
+                return false;
+            }
+            result.run();
+            return true;
+        }
+    }
+
+    boolean isRunning() {
+        return current.get() != null;
+    }
+}
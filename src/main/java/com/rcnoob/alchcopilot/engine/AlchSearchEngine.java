@@ -0,0 +1,418 @@
+package com.rcnoob.alchcopilot.engine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// scan, filter, score and rank alch candidates without any client dependencies
+public class AlchSearchEngine {
+
+    // search tiers: [candidates to check, check volume (1=yes, 0=no)]
+    public static final int[][] SEARCH_TIERS = {
+            {8, 1},   // top 8 with volume check
+            {15, 1},  // top 15 with volume check
+            {25, 0},  // top 25 without volume check
+            {50, 0}   // top 50 without volume check
+    };
+
+    // highest profit first, gp/hour ordering is the same since alchs per hour is constant
+    // ties go to the lower item id so merged partitions rank the same as a sequential scan
+    public static final Comparator<Candidate> BY_PROFIT =
+            Comparator.comparingInt(Candidate::getProfit).reversed().thenComparingInt(Candidate::getItemId);
+
+    // no tier looks further down the ranking than this
+    public static final int MAX_CANDIDATES = maxTierSize();
+    // candidates every search scores for tier history, as wide as the widest volume round tier history can ask for
+    static final int PROBE_WIDTH = TierHistory.MAX_VOLUME_TIER;
+
+    // tables smaller than this are scanned on the calling thread
+    static final int PARALLEL_THRESHOLD = 4096;
+    // rows per fork-join leaf
+    static final int PARTITION_SIZE = 1024;
+
+    // daily volume for an item, or a negative value when unknown
+    public interface VolumeLookup {
+        long getEstimatedDailyVolume(int itemId);
+    }
+
+    // ranks a candidate whose daily volume is known
+    public interface Scorer {
+        double score(Candidate candidate, long estimatedDailyVolume);
+    }
+
+    // profit and volume alone, for callers without price history
+    public static final Scorer PROFIT_AND_VOLUME = (candidate, estimatedDailyVolume) ->
+            score(candidate.getProfit(), estimatedDailyVolume);
+
+    public static class ScanResult {
+        // best candidates by profit, at most MAX_CANDIDATES
+        public final List<Candidate> candidates;
+        // every row that passed the filters, including those cut from the ranking
+        public final int matched;
+        public final int skippedDuplicates;
+        public final int skippedMembership;
+
+        ScanResult(List<Candidate> candidates, int matched, int skippedDuplicates, int skippedMembership) {
+            this.candidates = candidates;
+            this.matched = matched;
+            this.skippedDuplicates = skippedDuplicates;
+            this.skippedMembership = skippedMembership;
+        }
+    }
+
+    public static class SearchResult {
+        public final Candidate best;
+        public final double score;
+        // index into the tiers the winner came from, -1 when nothing qualified
+        public final int tier;
+        public final int candidateCount;
+        // how many of the top candidates had their volume looked up
+        public final int volumeChecked;
+        // profit rank of the best scorer passing the volume filter among the top PROBE_WIDTH candidates,
+        // whatever the tiers were. -1 when none of them has a known volume that passes
+        public final int probeRank;
+
+        SearchResult(Candidate best, double score, int tier, int candidateCount, int volumeChecked, int probeRank) {
+            this.best = best;
+            this.score = score;
+            this.tier = tier;
+            this.candidateCount = candidateCount;
+            this.volumeChecked = volumeChecked;
+            this.probeRank = probeRank;
+        }
+    }
+
+    // apply the static filters to every row and return the best survivors sorted by profit
+    public ScanResult scan(ItemTable table, SearchCriteria criteria, Set<Integer> excludedItemIds) {
+        return scanProfiles(table, Collections.singletonList(criteria), Collections.singletonList(excludedItemIds)).get(0);
+    }
+
+    // one pass over the table, testing each row against every criteria while it is hot
+    public List<ScanResult> scanProfiles(ItemTable table, List<SearchCriteria> criteriaList, List<Set<Integer>> excludedItemIds) {
+        PartialScan[] partials;
+        if (table.size() < PARALLEL_THRESHOLD) {
+            partials = scanRange(table, criteriaList, excludedItemIds, 0, table.size());
+        } else {
+            // id-range partitions on the common pool, also fine when called from inside a sweep task
+            partials = ForkJoinPool.commonPool().invoke(new ScanTask(table, criteriaList, excludedItemIds, 0, table.size()));
+        }
+
+        List<ScanResult> results = new ArrayList<>(partials.length);
+        for (PartialScan partial : partials) {
+            results.add(partial.toResult());
+        }
+        return results;
+    }
+
+    // per-profile state of one partition, keeps only its own top candidates
+    private static class PartialScan {
+        // min-heap on profit so the weakest kept candidate is evicted first
+        private final PriorityQueue<Candidate> top = new PriorityQueue<>(MAX_CANDIDATES + 1, BY_PROFIT.reversed());
+        private int matched;
+        private int skippedDuplicates;
+        private int skippedMembership;
+
+        void offer(Candidate candidate) {
+            matched++;
+            if (top.size() < MAX_CANDIDATES) {
+                top.add(candidate);
+            } else if (BY_PROFIT.compare(candidate, top.peek()) < 0) {
+                top.poll();
+                top.add(candidate);
+            }
+        }
+
+        PartialScan merge(PartialScan other) {
+            for (Candidate candidate : other.top) {
+                if (top.size() < MAX_CANDIDATES) {
+                    top.add(candidate);
+                } else if (BY_PROFIT.compare(candidate, top.peek()) < 0) {
+                    top.poll();
+                    top.add(candidate);
+                }
+            }
+            matched += other.matched;
+            skippedDuplicates += other.skippedDuplicates;
+            skippedMembership += other.skippedMembership;
+            return this;
+        }
+
+        ScanResult toResult() {
+            List<Candidate> candidates = new ArrayList<>(top);
+            candidates.sort(BY_PROFIT);
+            return new ScanResult(candidates, matched, skippedDuplicates, skippedMembership);
+        }
+    }
+
+    // splits the row range in half until it is small enough to scan directly
+    private static class ScanTask extends RecursiveTask<PartialScan[]> {
+        private final ItemTable table;
+        private final List<SearchCriteria> criteriaList;
+        private final List<Set<Integer>> excludedItemIds;
+        private final int from;
+        private final int to;
+
+        ScanTask(ItemTable table, List<SearchCriteria> criteriaList, List<Set<Integer>> excludedItemIds, int from, int to) {
+            this.table = table;
+            this.criteriaList = criteriaList;
+            this.excludedItemIds = excludedItemIds;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected PartialScan[] compute() {
+            if (to - from <= PARTITION_SIZE) {
+                return scanRange(table, criteriaList, excludedItemIds, from, to);
+            }
+
+            int mid = (from + to) >>> 1;
+            ScanTask left = new ScanTask(table, criteriaList, excludedItemIds, from, mid);
+            left.fork();
+            PartialScan[] right = new ScanTask(table, criteriaList, excludedItemIds, mid, to).compute();
+            PartialScan[] merged = left.join();
+            for (int p = 0; p < merged.length; p++) {
+                merged[p].merge(right[p]);
+            }
+            return merged;
+        }
+    }
+
+    private static PartialScan[] scanRange(ItemTable table, List<SearchCriteria> criteriaList,
+                                           List<Set<Integer>> excludedItemIds, int from, int to) {
+        int profileCount = criteriaList.size();
+        PartialScan[] partials = new PartialScan[profileCount];
+        for (int p = 0; p < profileCount; p++) {
+            partials[p] = new PartialScan();
+        }
+
+        int natureRunePrice = table.getNatureRunePrice();
+
+        for (int row = from; row < to; row++) {
+            String name = table.getName(row);
+            if (name == null || name.isEmpty()) {
+                continue;
+            }
+
+            int itemId = table.getItemId(row);
+            byte members = table.getMembers(row);
+
+            // calculate profit once per row
+            int currentPrice = table.getPrice(row);
+            int highAlchPrice = table.getHighAlch(row);
+            int profit = highAlchPrice - currentPrice - natureRunePrice;
+            int geLimit = table.getGeLimit(row);
+            int remainingLimit = table.getRemainingLimit(row);
+            Candidate candidate = null;
+
+            for (int p = 0; p < profileCount; p++) {
+                SearchCriteria criteria = criteriaList.get(p);
+
+                // skip items we already recommended if looking for new items
+                if (excludedItemIds.get(p).contains(itemId)) {
+                    partials[p].skippedDuplicates++;
+                    continue;
+                }
+
+                if (!passesMembershipFilter(criteria, members)) {
+                    partials[p].skippedMembership++;
+                    continue;
+                }
+
+                if (!passesStaticFilters(criteria, currentPrice, profit, geLimit, remainingLimit)) {
+                    continue;
+                }
+
+                if (candidate == null) {
+                    candidate = new Candidate(itemId, name, currentPrice, highAlchPrice, profit, geLimit, remainingLimit);
+                }
+                partials[p].offer(candidate);
+            }
+        }
+
+        return partials;
+    }
+
+    private static int maxTierSize() {
+        int max = 0;
+        for (int[] tier : SEARCH_TIERS) {
+            max = Math.max(max, tier[0]);
+        }
+        return max;
+    }
+
+    // profit, limit and price filters for a single item. the minimum limit applies to the item's own limit,
+    // the quantity and cost to what is left of it, and an item whose limit is used up is never a candidate
+    public static boolean passesStaticFilters(SearchCriteria criteria, int currentPrice, int profit, int geLimit,
+                                              int remainingLimit) {
+        int recommendedQuantity = calculateQuantity(criteria, currentPrice, remainingLimit);
+        long totalCost = (long) recommendedQuantity * currentPrice;
+
+        return profit >= criteria.getMinimumProfit() &&
+                geLimit >= criteria.getMinimumGeLimit() &&
+                (geLimit <= 0 || remainingLimit > 0) &&
+                (criteria.getMaxPrice() <= 0 || currentPrice <= criteria.getMaxPrice()) &&
+                (criteria.getMaxTotalPrice() <= 0 || totalCost <= criteria.getMaxTotalPrice());
+    }
+
+    // every row passing the filters, best profit first, without the candidate cap of a search
+    public List<Candidate> rankAll(ItemTable table, SearchCriteria criteria) {
+        List<Candidate> ranked = new ArrayList<>();
+        int natureRunePrice = table.getNatureRunePrice();
+
+        for (int row = 0; row < table.size(); row++) {
+            String name = table.getName(row);
+            if (name == null || name.isEmpty() || !passesMembershipFilter(criteria, table.getMembers(row))) {
+                continue;
+            }
+
+            int currentPrice = table.getPrice(row);
+            int highAlchPrice = table.getHighAlch(row);
+            int profit = highAlchPrice - currentPrice - natureRunePrice;
+            int geLimit = table.getGeLimit(row);
+            int remainingLimit = table.getRemainingLimit(row);
+            if (passesStaticFilters(criteria, currentPrice, profit, geLimit, remainingLimit)) {
+                ranked.add(new Candidate(table.getItemId(row), name, currentPrice, highAlchPrice, profit, geLimit,
+                        remainingLimit));
+            }
+        }
+
+        ranked.sort(BY_PROFIT);
+        return ranked;
+    }
+
+    // scan the table and run the tiered selection against a known set of volumes
+    public SearchResult search(ItemTable table, SearchCriteria criteria, Set<Integer> excludedItemIds, int[][] tiers,
+                               VolumeLookup volumes, Scorer scorer) {
+        return select(scan(table, criteria, excludedItemIds), criteria, tiers, volumes, scorer);
+    }
+
+    // pick from a scan's candidates tier by tier. tiers are [candidates to check, check volume (1=yes, 0=no)],
+    // a volume tier keeps the best scorer passing the volume filter and a profit tier takes the top candidate.
+    // candidates whose volume is unknown are scored on profit alone and never filtered out
+    public SearchResult select(ScanResult scanResult, SearchCriteria criteria, int[][] tiers, VolumeLookup volumes,
+                               Scorer scorer) {
+        List<Candidate> candidates = scanResult.candidates;
+        int volumeChecked = 0;
+        int probeRank = probeRank(candidates, criteria, volumes, scorer);
+
+        for (int tier = 0; tier < tiers.length; tier++) {
+            List<Candidate> tierCandidates = candidates.subList(0, Math.min(tiers[tier][0], candidates.size()));
+            if (tierCandidates.isEmpty()) {
+                continue;
+            }
+
+            // if no volume check needed, just pick the best profit item
+            if (tiers[tier][1] == 0) {
+                Candidate best = tierCandidates.get(0);
+                return new SearchResult(best, profitScore(best.getProfit()), tier, scanResult.matched, volumeChecked,
+                        probeRank);
+            }
+
+            Candidate best = null;
+            double bestScore = -1;
+            for (Candidate candidate : tierCandidates) {
+                long dailyVolume = volumes.getEstimatedDailyVolume(candidate.getItemId());
+                if (dailyVolume >= 0 && !passesVolumeFilter(criteria, dailyVolume)) {
+                    continue;
+                }
+
+                double score = dailyVolume >= 0 ? scorer.score(candidate, dailyVolume) : profitScore(candidate.getProfit());
+                if (score > bestScore) {
+                    best = candidate;
+                    bestScore = score;
+                }
+            }
+            volumeChecked = Math.max(volumeChecked, tierCandidates.size());
+
+            if (best != null) {
+                return new SearchResult(best, bestScore, tier, scanResult.matched, volumeChecked, probeRank);
+            }
+        }
+
+        return new SearchResult(null, 0, -1, scanResult.matched, volumeChecked, probeRank);
+    }
+
+    // where the winner sits in the profit ranking at a fixed width, so tier history can see past the tiers in use
+    private static int probeRank(List<Candidate> candidates, SearchCriteria criteria, VolumeLookup volumes, Scorer scorer) {
+        int bestRank = -1;
+        double bestScore = -1;
+        for (int rank = 0; rank < Math.min(PROBE_WIDTH, candidates.size()); rank++) {
+            Candidate candidate = candidates.get(rank);
+            long dailyVolume = volumes.getEstimatedDailyVolume(candidate.getItemId());
+            if (dailyVolume < 0 || !passesVolumeFilter(criteria, dailyVolume)) {
+                continue;
+            }
+
+            double score = scorer.score(candidate, dailyVolume);
+            if (score > bestScore) {
+                bestRank = rank;
+                bestScore = score;
+            }
+        }
+        return bestRank;
+    }
+
+    // check if a membership flag passes the filter, unknown membership always passes
+    public static boolean passesMembershipFilter(SearchCriteria criteria, byte members) {
+        if (members == ItemTable.MEMBERS_UNKNOWN) {
+            return true;
+        }
+
+        switch (criteria.getMembershipFilter()) {
+            case F2P:
+                return members == ItemTable.MEMBERS_F2P;
+            case P2P:
+                return members == ItemTable.MEMBERS_P2P;
+            case BOTH:
+            default:
+                return true;
+        }
+    }
+
+    // filter items based on volume requirements
+    public static boolean passesVolumeFilter(SearchCriteria criteria, long estimatedDailyVolume) {
+        if (criteria.getMinimumVolumePerHour() <= 0) {
+            return true; // filter disabled
+        }
+
+        double hourlyVolume = estimatedDailyVolume / 24.0;
+        return hourlyVolume >= criteria.getMinimumVolumePerHour();
+    }
+
+    // score items based on profit and volume
+    public static double score(int profit, long estimatedDailyVolume) {
+        double volumeScore = Math.min(Math.log10(estimatedDailyVolume + 1) / 6.0, 1.0);
+        return (0.6 * profitScore(profit)) + (0.4 * volumeScore);
+    }
+
+    // score with the profit adjusted for where the price is heading. a rising price eats into the margin before
+    // the buy completes and a volatile one makes it unreliable, a falling price isn't counted on
+    public static double score(int profit, long estimatedDailyVolume, double priceTrendPerHour, double priceStdDev) {
+        double expectedProfit = profit - Math.max(0, priceTrendPerHour) - 0.5 * priceStdDev;
+        return score((int) Math.round(expectedProfit), estimatedDailyVolume);
+    }
+
+    // score used when no volume data is available
+    public static double profitScore(int profit) {
+        return profit / 1000.0;
+    }
+
+    // calculate how many items to buy based on the remaining GE limit and total cost constraints
+    public static int calculateQuantity(SearchCriteria criteria, int itemPrice, int remainingLimit) {
+        int quantity = remainingLimit;
+
+        // limit by total investment if configured
+        if (criteria.getMaxTotalPrice() > 0 && itemPrice > 0) {
+            int maxByTotalPrice = criteria.getMaxTotalPrice() / itemPrice;
+            quantity = Math.min(quantity, maxByTotalPrice);
+        }
+
+        return Math.max(1, quantity);
+    }
+}
@@ -0,0 +1,26 @@
+package com.rcnoob.alchcopilot.engine;
+
+import lombok.Getter;
+
+// an item that passed the static filters of a scan
+@Getter
+public class Candidate {
+    private final int itemId;
+    private final String name;
+    private final int price;
+    private final int highAlchPrice;
+    private final int profit;
+    private final int geLimit;
+    // what is left of the limit in the current 4-hour window
+    private final int remainingLimit;
+
+    public Candidate(int itemId, String name, int price, int highAlchPrice, int profit, int geLimit, int remainingLimit) {
+        this.itemId = itemId;
+        this.name = name;
+        this.price = price;
+        this.highAlchPrice = highAlchPrice;
+        this.profit = profit;
+        this.geLimit = geLimit;
+        this.remainingLimit = remainingLimit;
+    }
+}
@@ -0,0 +1,20 @@
+package com.rcnoob.alchcopilot.engine;
+
+// supplies the static and price data the search engine runs on
+public interface ItemDataSource {
+
+    // receives one priced item, members is null when unknown
+    interface ItemVisitor {
+        void visit(int itemId, String name, int price, int highAlch, int geLimit, Boolean members);
+    }
+
+    // visit every item that currently has a price
+    void forEachItem(ItemVisitor visitor);
+
+    int getNatureRunePrice();
+
+    // how much of the item's buy limit is still available, the whole limit unless purchases are tracked
+    default int getRemainingLimit(int itemId, int geLimit) {
+        return geLimit;
+    }
+}
@@ -0,0 +1,195 @@
+package com.rcnoob.alchcopilot.engine;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+// flat, row-indexed copy of a data source, safe to scan from any thread
+public class ItemTable {
+
+    public static final byte MEMBERS_UNKNOWN = -1;
+    public static final byte MEMBERS_F2P = 0;
+    public static final byte MEMBERS_P2P = 1;
+
+    private static final AtomicLong NEXT_VERSION = new AtomicLong();
+
+    private final int size;
+    private final int[] itemIds;
+    private final String[] names;
+    private final int[] prices;
+    private final int[] highAlch;
+    private final int[] geLimits;
+    private final int[] remainingLimits;
+    private final byte[] members;
+    private final int natureRunePrice;
+    // quick inequality check between captures, equal hashes still need a full comparison
+    private final long contentHash;
+    // unique per captured table, a capture identical to the last one is replaced by it and keeps its version
+    private final long version;
+
+    private ItemTable(int size, int[] itemIds, String[] names, int[] prices, int[] highAlch, int[] geLimits,
+                      int[] remainingLimits, byte[] members, int natureRunePrice, long contentHash) {
+        this.size = size;
+        this.itemIds = itemIds;
+        this.names = names;
+        this.prices = prices;
+        this.highAlch = highAlch;
+        this.geLimits = geLimits;
+        this.remainingLimits = remainingLimits;
+        this.members = members;
+        this.natureRunePrice = natureRunePrice;
+        this.contentHash = contentHash;
+        this.version = NEXT_VERSION.incrementAndGet();
+    }
+
+    // copy everything the engine needs out of the source in one pass
+    public static ItemTable capture(ItemDataSource source) {
+        Builder builder = new Builder(4096);
+        source.forEachItem((itemId, name, price, alchValue, geLimit, isMembers) -> builder.add(itemId, name, price,
+                alchValue, geLimit, source.getRemainingLimit(itemId, geLimit), isMembers));
+        return builder.build(source.getNatureRunePrice());
+    }
+
+    private static class Builder {
+        private int size = 0;
+        private int[] itemIds;
+        private String[] names;
+        private int[] prices;
+        private int[] highAlch;
+        private int[] geLimits;
+        private int[] remainingLimits;
+        private byte[] members;
+
+        Builder(int capacity) {
+            itemIds = new int[capacity];
+            names = new String[capacity];
+            prices = new int[capacity];
+            highAlch = new int[capacity];
+            geLimits = new int[capacity];
+            remainingLimits = new int[capacity];
+            members = new byte[capacity];
+        }
+
+        void add(int itemId, String name, int price, int alchValue, int geLimit, int remainingLimit, Boolean isMembers) {
+            if (size == itemIds.length) {
+                int capacity = size * 2;
+                itemIds = Arrays.copyOf(itemIds, capacity);
+                names = Arrays.copyOf(names, capacity);
+                prices = Arrays.copyOf(prices, capacity);
+                highAlch = Arrays.copyOf(highAlch, capacity);
+                geLimits = Arrays.copyOf(geLimits, capacity);
+                remainingLimits = Arrays.copyOf(remainingLimits, capacity);
+                members = Arrays.copyOf(members, capacity);
+            }
+
+            itemIds[size] = itemId;
+            names[size] = name;
+            prices[size] = price;
+            highAlch[size] = alchValue;
+            geLimits[size] = geLimit;
+            remainingLimits[size] = remainingLimit;
+            members[size] = isMembers == null ? MEMBERS_UNKNOWN : isMembers ? MEMBERS_P2P : MEMBERS_F2P;
+            size++;
+        }
+
+        // rows are ordered by item id so contiguous row ranges are id ranges
+        ItemTable build(int natureRunePrice) {
+            long[] order = new long[size];
+            for (int row = 0; row < size; row++) {
+                order[row] = ((long) itemIds[row] << 32) | row;
+            }
+            Arrays.sort(order);
+
+            int[] sortedIds = new int[size];
+            String[] sortedNames = new String[size];
+            int[] sortedPrices = new int[size];
+            int[] sortedHighAlch = new int[size];
+            int[] sortedGeLimits = new int[size];
+            int[] sortedRemainingLimits = new int[size];
+            byte[] sortedMembers = new byte[size];
+            long hash = natureRunePrice;
+            for (int i = 0; i < size; i++) {
+                int row = (int) order[i];
+                hash = 31 * hash + itemIds[row];
+                hash = 31 * hash + prices[row];
+                hash = 31 * hash + highAlch[row];
+                hash = 31 * hash + geLimits[row];
+                hash = 31 * hash + remainingLimits[row];
+                hash = 31 * hash + members[row];
+                sortedIds[i] = itemIds[row];
+                sortedNames[i] = names[row];
+                sortedPrices[i] = prices[row];
+                sortedHighAlch[i] = highAlch[row];
+                sortedGeLimits[i] = geLimits[row];
+                sortedRemainingLimits[i] = remainingLimits[row];
+                sortedMembers[i] = members[row];
+            }
+
+            return new ItemTable(size, sortedIds, sortedNames, sortedPrices, sortedHighAlch, sortedGeLimits,
+                    sortedRemainingLimits, sortedMembers, natureRunePrice, hash);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // row of the item, negative if the table has no entry for it
+    public int indexOf(int itemId) {
+        return Arrays.binarySearch(itemIds, 0, size, itemId);
+    }
+
+    public int getItemId(int row) {
+        return itemIds[row];
+    }
+
+    public String getName(int row) {
+        return names[row];
+    }
+
+    public int getPrice(int row) {
+        return prices[row];
+    }
+
+    public int getHighAlch(int row) {
+        return highAlch[row];
+    }
+
+    public int getGeLimit(int row) {
+        return geLimits[row];
+    }
+
+    // what can still be bought in the current 4-hour window, captured with the prices
+    public int getRemainingLimit(int row) {
+        return remainingLimits[row];
+    }
+
+    public byte getMembers(int row) {
+        return members[row];
+    }
+
+    public int getNatureRunePrice() {
+        return natureRunePrice;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    // true when both tables hold exactly the same rows and nature rune price
+    public boolean hasSameContent(ItemTable other) {
+        if (other == this) {
+            return true;
+        }
+        return other != null
+                && contentHash == other.contentHash
+                && size == other.size
+                && natureRunePrice == other.natureRunePrice
+                && Arrays.equals(itemIds, 0, size, other.itemIds, 0, size)
+                && Arrays.equals(prices, 0, size, other.prices, 0, size)
+                && Arrays.equals(highAlch, 0, size, other.highAlch, 0, size)
+                && Arrays.equals(geLimits, 0, size, other.geLimits, 0, size)
+                && Arrays.equals(remainingLimits, 0, size, other.remainingLimits, 0, size)
+                && Arrays.equals(members, 0, size, other.members, 0, size)
+                && Arrays.equals(names, 0, size, other.names, 0, size);
+    }
+}
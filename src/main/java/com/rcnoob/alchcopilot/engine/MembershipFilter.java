@@ -0,0 +1,8 @@
+package com.rcnoob.alchcopilot.engine;
+
+// which items a search considers by membership, kept apart from the config so the engine needs no client classes
+public enum MembershipFilter {
+    F2P,
+    P2P,
+    BOTH
+}
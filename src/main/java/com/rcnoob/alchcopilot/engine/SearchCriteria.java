@@ -0,0 +1,54 @@
+package com.rcnoob.alchcopilot.engine;
+
+import lombok.Getter;
+
+import java.util.Objects;
+
+// the selection settings a search runs against, decoupled from the live config
+@Getter
+public class SearchCriteria {
+    private final int minimumProfit;
+    private final int minimumGeLimit;
+    private final int maxPrice;
+    private final int maxTotalPrice;
+    private final int minimumVolumePerHour;
+    private final MembershipFilter membershipFilter;
+
+    public SearchCriteria(int minimumProfit, int minimumGeLimit, int maxPrice, int maxTotalPrice,
+                          int minimumVolumePerHour, MembershipFilter membershipFilter) {
+        this.minimumProfit = minimumProfit;
+        this.minimumGeLimit = minimumGeLimit;
+        this.maxPrice = maxPrice;
+        this.maxTotalPrice = maxTotalPrice;
+        this.minimumVolumePerHour = minimumVolumePerHour;
+        this.membershipFilter = membershipFilter;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SearchCriteria)) {
+            return false;
+        }
+        SearchCriteria other = (SearchCriteria) o;
+        return minimumProfit == other.minimumProfit
+                && minimumGeLimit == other.minimumGeLimit
+                && maxPrice == other.maxPrice
+                && maxTotalPrice == other.maxTotalPrice
+                && minimumVolumePerHour == other.minimumVolumePerHour
+                && membershipFilter == other.membershipFilter;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(minimumProfit, minimumGeLimit, maxPrice, maxTotalPrice, minimumVolumePerHour, membershipFilter);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("minProfit=%d minLimit=%d maxPrice=%d maxTotal=%d minVolume=%d members=%s",
+                minimumProfit, minimumGeLimit, maxPrice, maxTotalPrice, minimumVolumePerHour, membershipFilter.name());
+    }
+}
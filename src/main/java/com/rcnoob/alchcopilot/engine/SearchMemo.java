@@ -0,0 +1,87 @@
+package com.rcnoob.alchcopilot.engine;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+// remembers search outcomes for inputs that have not changed since they were computed
+public class SearchMemo<V> {
+
+    private static final int MAX_ENTRIES = 32;
+
+    private final Map<Key, V> results = new LinkedHashMap<Key, V>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, V> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    // everything a search result depends on
+    public static class Key {
+        private final SearchCriteria criteria;
+        private final long tableVersion;
+        private final long volumeVersion;
+        private final Set<Integer> excludedItemIds;
+
+        public Key(SearchCriteria criteria, long tableVersion, long volumeVersion, Set<Integer> excludedItemIds) {
+            this.criteria = criteria;
+            this.tableVersion = tableVersion;
+            this.volumeVersion = volumeVersion;
+            this.excludedItemIds = Collections.unmodifiableSet(new HashSet<>(excludedItemIds));
+        }
+
+        public Key withVolumeVersion(long volumeVersion) {
+            return new Key(criteria, tableVersion, volumeVersion, excludedItemIds);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return tableVersion == other.tableVersion
+                    && volumeVersion == other.volumeVersion
+                    && criteria.equals(other.criteria)
+                    && excludedItemIds.equals(other.excludedItemIds);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(criteria, tableVersion, volumeVersion, excludedItemIds);
+        }
+    }
+
+    // the remembered outcome, which may itself be "nothing found"
+    public static class Hit<V> {
+        public final V value;
+
+        Hit(V value) {
+            this.value = value;
+        }
+    }
+
+    // null on a miss, keys with an unknown volume version never hit
+    public synchronized Hit<V> get(Key key) {
+        if (key.volumeVersion < 0 || !results.containsKey(key)) {
+            return null;
+        }
+        return new Hit<>(results.get(key));
+    }
+
+    public synchronized void put(Key key, V value) {
+        if (key.volumeVersion >= 0) {
+            results.put(key, value);
+        }
+    }
+
+    public synchronized void clear() {
+        results.clear();
+    }
+}
@@ -0,0 +1,98 @@
+package com.rcnoob.alchcopilot.engine;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// a named set of search criteria, evaluated alongside the others in one scan
+@Slf4j
+@Getter
+public class SearchProfile {
+    public static final String DEFAULT_NAME = "Default";
+
+    private final String name;
+    private final SearchCriteria criteria;
+
+    public SearchProfile(String name, SearchCriteria criteria) {
+        this.name = name;
+        this.criteria = criteria;
+    }
+
+    // parse "name: key=value, key=value" lines, keys left out inherit from the defaults
+    public static List<SearchProfile> parse(String text, SearchCriteria defaults) {
+        List<SearchProfile> profiles = new ArrayList<>();
+        Set<String> names = new LinkedHashSet<>();
+        names.add(DEFAULT_NAME);
+
+        if (text == null) {
+            return profiles;
+        }
+
+        for (String line : text.split("\\r?\\n")) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            int colon = line.indexOf(':');
+            String name = (colon < 0 ? line : line.substring(0, colon)).trim();
+            if (name.isEmpty() || !names.add(name)) {
+                log.warn("Skipping profile with empty or duplicate name: {}", line);
+                continue;
+            }
+
+            int minimumProfit = defaults.getMinimumProfit();
+            int minimumGeLimit = defaults.getMinimumGeLimit();
+            int maxPrice = defaults.getMaxPrice();
+            int maxTotalPrice = defaults.getMaxTotalPrice();
+            int minimumVolumePerHour = defaults.getMinimumVolumePerHour();
+            MembershipFilter membershipFilter = defaults.getMembershipFilter();
+
+            String settings = colon < 0 ? "" : line.substring(colon + 1);
+            for (String setting : settings.split(",")) {
+                String[] pair = setting.split("=", 2);
+                if (pair.length != 2) {
+                    continue;
+                }
+
+                String key = pair[0].trim();
+                String value = pair[1].trim();
+                try {
+                    switch (key) {
+                        case "minimumProfit":
+                            minimumProfit = Integer.parseInt(value);
+                            break;
+                        case "minimumGeLimit":
+                            minimumGeLimit = Integer.parseInt(value);
+                            break;
+                        case "maxPrice":
+                            maxPrice = Integer.parseInt(value);
+                            break;
+                        case "maxTotalPrice":
+                            maxTotalPrice = Integer.parseInt(value);
+                            break;
+                        case "minimumVolumePerHour":
+                            minimumVolumePerHour = Integer.parseInt(value);
+                            break;
+                        case "membership":
+                            membershipFilter = MembershipFilter.valueOf(value.toUpperCase());
+                            break;
+                        default:
+                            log.warn("Unknown setting {} in profile {}", key, name);
+                    }
+                } catch (IllegalArgumentException e) {
+                    log.warn("Invalid value {} for {} in profile {}", value, key, name);
+                }
+            }
+
+            profiles.add(new SearchProfile(name, new SearchCriteria(minimumProfit, minimumGeLimit, maxPrice,
+                    maxTotalPrice, minimumVolumePerHour, membershipFilter)));
+        }
+
+        return profiles;
+    }
+}
@@ -0,0 +1,89 @@
+package com.rcnoob.alchcopilot.engine;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// learns, per criteria, how deep in the profit ranking the winning item usually is and sizes the tiers to match
+public class TierHistory {
+
+    // chance the first volume round should contain the winner
+    static final double TARGET_HIT_RATE = 0.9;
+    // outcomes needed before the defaults are replaced
+    static final int MIN_SAMPLES = 5;
+    static final int WINDOW = 30;
+    static final int MIN_FIRST_TIER = 3;
+    // widest single volume round, also used when volume rounds rarely find anything
+    static final int MAX_VOLUME_TIER = 25;
+    private static final int MAX_PROFILES = 16;
+    // winner came from a profit-only tier, no volume round found one
+    private static final int MISS = Integer.MAX_VALUE;
+
+    private final Map<SearchCriteria, Deque<Integer>> outcomes = new LinkedHashMap<SearchCriteria, Deque<Integer>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<SearchCriteria, Deque<Integer>> eldest) {
+            return size() > MAX_PROFILES;
+        }
+    };
+
+    // winner picked by a volume round, rank is its position in the profit ranking
+    public synchronized void recordHit(SearchCriteria criteria, int rank) {
+        record(criteria, rank);
+    }
+
+    // no volume round produced a winner
+    public synchronized void recordMiss(SearchCriteria criteria) {
+        record(criteria, MISS);
+    }
+
+    // tiers to use for the next search, the static defaults until enough outcomes are known
+    public synchronized int[][] tiersFor(SearchCriteria criteria) {
+        Deque<Integer> history = outcomes.get(criteria);
+        if (history == null || history.size() < MIN_SAMPLES) {
+            return AlchSearchEngine.SEARCH_TIERS;
+        }
+
+        int[] ranks = new int[history.size()];
+        int i = 0;
+        for (int rank : history) {
+            ranks[i++] = rank;
+        }
+        Arrays.sort(ranks);
+
+        int quantileRank = ranks[(int) Math.ceil(TARGET_HIT_RATE * ranks.length) - 1];
+        if (quantileRank == MISS) {
+            // volume rounds mostly come up empty, one wide round before falling back on profit alone
+            return new int[][]{
+                    {MAX_VOLUME_TIER, 1},
+                    {MAX_VOLUME_TIER, 0},
+                    {AlchSearchEngine.MAX_CANDIDATES, 0}
+            };
+        }
+
+        int first = Math.max(MIN_FIRST_TIER, Math.min(MAX_VOLUME_TIER, quantileRank + 1));
+        int second = Math.min(MAX_VOLUME_TIER, Math.max(first * 2, AlchSearchEngine.SEARCH_TIERS[1][0]));
+        if (second <= first) {
+            return new int[][]{
+                    {first, 1},
+                    {MAX_VOLUME_TIER, 0},
+                    {AlchSearchEngine.MAX_CANDIDATES, 0}
+            };
+        }
+        return new int[][]{
+                {first, 1},
+                {second, 1},
+                {MAX_VOLUME_TIER, 0},
+                {AlchSearchEngine.MAX_CANDIDATES, 0}
+        };
+    }
+
+    private void record(SearchCriteria criteria, int rank) {
+        Deque<Integer> history = outcomes.computeIfAbsent(criteria, key -> new ArrayDeque<>());
+        history.addLast(rank);
+        if (history.size() > WINDOW) {
+            history.removeFirst();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.rcnoob.alchcopilot.model;
 
+import com.rcnoob.alchcopilot.engine.AlchSearchEngine;
 import com.rcnoob.alchcopilot.service.VolumeChecker;
 import lombok.Getter;
 import lombok.Setter;
@@ -17,6 +18,10 @@ public class AlchItem {
     private final int geLimit;
     private final BufferedImage image;
     private VolumeChecker.VolumeData volumeData;
+    // null until enough 5m windows have been seen for the item
+    private PriceTrend priceTrend;
+    // selected after the search deadline, before all volume data arrived
+    private boolean partial;
 
     public AlchItem(String name, int itemId, int gePrice, int highAlchPrice, int highAlchProfit, int geLimit, BufferedImage image) {
         this.name = name;
@@ -28,4 +33,18 @@ public class AlchItem {
         this.image = image;
         this.volumeData = null;
     }
+
+    // ranking score with the given volume, profit only without volume
+    public double score(VolumeChecker.VolumeData volumeData) {
+        return volumeData == null ? AlchSearchEngine.profitScore(highAlchProfit) : score(volumeData.getEstimatedDailyVolume());
+    }
+
+    // ranking score at a known daily volume, adjusted by the price trend once it's known
+    public double score(long estimatedDailyVolume) {
+        if (priceTrend == null) {
+            return AlchSearchEngine.score(highAlchProfit, estimatedDailyVolume);
+        }
+        return AlchSearchEngine.score(highAlchProfit, estimatedDailyVolume, priceTrend.getTrendPerHour(),
+                priceTrend.getPriceStdDev());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.rcnoob.alchcopilot.model;
+
+import lombok.Getter;
+
+// a stack the player already owns that is worth more alched than sold
+@Getter
+public class Holding {
+    private final int itemId;
+    private final String name;
+    private final long quantity;
+    private final int profitEach;
+
+    public Holding(int itemId, String name, long quantity, int profitEach) {
+        this.itemId = itemId;
+        this.name = name;
+        this.quantity = quantity;
+        this.profitEach = profitEach;
+    }
+
+    public long getTotalProfit() {
+        return quantity * profitEach;
+    }
+}
@@ -0,0 +1,88 @@
+package com.rcnoob.alchcopilot.model;
+
+import com.rcnoob.alchcopilot.engine.ItemTable;
+import com.rcnoob.alchcopilot.service.VolumeChecker;
+import lombok.Getter;
+
+// everything a search reads about the market at one moment: client prices, alch values, limits and
+// membership, plus the wiki trade volumes. never modified, a change to any part publishes a new snapshot
+@Getter
+public final class MarketSnapshot {
+
+    public static final MarketSnapshot EMPTY = new MarketSnapshot(0, null, 0, null, null);
+
+    // increases with every published snapshot
+    private final long version;
+    // null until prices have been captured on the client thread
+    private final ItemTable items;
+    // increases whenever a different volume window is published, new item captures leave it alone
+    private final long volumeVersion;
+    // null until the first volume fetch or restore
+    private final PriceSnapshot fiveMinute;
+    private final PriceSnapshot oneHour;
+
+    private MarketSnapshot(long version, ItemTable items, long volumeVersion, PriceSnapshot fiveMinute,
+                           PriceSnapshot oneHour) {
+        this.version = version;
+        this.items = items;
+        this.volumeVersion = volumeVersion;
+        this.fiveMinute = fiveMinute;
+        this.oneHour = oneHour;
+    }
+
+    // an identical capture keeps the current table, so its version only changes when the content does
+    public MarketSnapshot withItems(ItemTable items) {
+        ItemTable current = items.hasSameContent(this.items) ? this.items : items;
+        return new MarketSnapshot(version + 1, current, volumeVersion, fiveMinute, oneHour);
+    }
+
+    // a download of the window already held keeps the volume version
+    public MarketSnapshot withFiveMinute(PriceSnapshot fiveMinute) {
+        long volumes = isSameWindow(this.fiveMinute, fiveMinute) ? volumeVersion : volumeVersion + 1;
+        return new MarketSnapshot(version + 1, items, volumes, fiveMinute, oneHour);
+    }
+
+    public MarketSnapshot withOneHour(PriceSnapshot oneHour) {
+        long volumes = isSameWindow(this.oneHour, oneHour) ? volumeVersion : volumeVersion + 1;
+        return new MarketSnapshot(version + 1, items, volumes, fiveMinute, oneHour);
+    }
+
+    private static boolean isSameWindow(PriceSnapshot current, PriceSnapshot next) {
+        return current != null && next != null && current.getTimestamp() == next.getTimestamp();
+    }
+
+    // this snapshot's prices with the volumes of a later one. never published, it only lets a search that
+    // captured its prices before the volumes landed score against both without picking up a newer table
+    public MarketSnapshot withVolumesOf(MarketSnapshot later) {
+        return new MarketSnapshot(version, items, later.volumeVersion, later.fiveMinute, later.oneHour);
+    }
+
+    // drop every part but keep counting versions, so an old snapshot is never mistaken for a new one
+    public MarketSnapshot cleared() {
+        return new MarketSnapshot(version + 1, null, volumeVersion + 1, null, null);
+    }
+
+    // when the 5m volumes were traded, epoch seconds, 0 when no volumes are loaded
+    public long getVolumeTimestamp() {
+        return fiveMinute != null ? fiveMinute.getTimestamp() : 0;
+    }
+
+    // 5-minute trade volume of an item, null when no volume data has been loaded at all
+    public VolumeChecker.VolumeData getVolumeData(int itemId) {
+        if (fiveMinute == null) {
+            return null;
+        }
+
+        int index = fiveMinute.indexOf(itemId);
+        if (index >= 0) {
+            return new VolumeChecker.VolumeData(itemId, fiveMinute.getHighPriceVolume(index), fiveMinute.getLowPriceVolume(index));
+        }
+
+        // no trades in the last 5 minutes, scale the hourly volume down to a 5-minute equivalent
+        index = oneHour != null ? oneHour.indexOf(itemId) : -1;
+        if (index < 0) {
+            return new VolumeChecker.VolumeData(itemId, 0, 0);
+        }
+        return new VolumeChecker.VolumeData(itemId, oneHour.getHighPriceVolume(index) / 12, oneHour.getLowPriceVolume(index) / 12);
+    }
+}
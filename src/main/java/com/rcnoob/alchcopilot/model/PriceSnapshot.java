@@ -0,0 +1,72 @@
+package com.rcnoob.alchcopilot.model;
+
+import java.util.Arrays;
+
+// columnar copy of one wiki prices response (5m or 1h), sorted by item id
+public class PriceSnapshot implements Weighable {
+    private final long timestamp;
+    private final int[] itemIds;
+    private final int[] avgHighPrice;
+    private final int[] avgLowPrice;
+    private final long[] highPriceVolume;
+    private final long[] lowPriceVolume;
+
+    public PriceSnapshot(long timestamp, int[] itemIds, int[] avgHighPrice, int[] avgLowPrice,
+                         long[] highPriceVolume, long[] lowPriceVolume) {
+        this.timestamp = timestamp;
+        this.itemIds = itemIds;
+        this.avgHighPrice = avgHighPrice;
+        this.avgLowPrice = avgLowPrice;
+        this.highPriceVolume = highPriceVolume;
+        this.lowPriceVolume = lowPriceVolume;
+    }
+
+    // index of the item in the columns, negative if the item has no entry
+    public int indexOf(int itemId) {
+        return Arrays.binarySearch(itemIds, itemId);
+    }
+
+    // five columns of 4 or 8 byte values per item
+    @Override
+    public long estimateBytes() {
+        return 64 + (long) itemIds.length * (4 + 4 + 4 + 8 + 8);
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public int size() {
+        return itemIds.length;
+    }
+
+    public int getItemId(int index) {
+        return itemIds[index];
+    }
+
+    public int getAvgHighPrice(int index) {
+        return avgHighPrice[index];
+    }
+
+    public int getAvgLowPrice(int index) {
+        return avgLowPrice[index];
+    }
+
+    // the average of both sides when the item traded both ways in the window, 0 when it didn't trade
+    public int getMidPrice(int index) {
+        int high = avgHighPrice[index];
+        int low = avgLowPrice[index];
+        if (high > 0 && low > 0) {
+            return (int) (((long) high + low) / 2);
+        }
+        return Math.max(high, low);
+    }
+
+    public long getHighPriceVolume(int index) {
+        return highPriceVolume[index];
+    }
+
+    public long getLowPriceVolume(int index) {
+        return lowPriceVolume[index];
+    }
+}
@@ -0,0 +1,22 @@
+package com.rcnoob.alchcopilot.model;
+
+import lombok.Getter;
+
+// smoothed price, volatility and direction of one item over roughly the last hour
+@Getter
+public class PriceTrend {
+    private final double priceMean;
+    private final double priceStdDev;
+    // gp per hour the price is moving, positive when it is rising
+    private final double trendPerHour;
+    private final double volumeMean;
+    private final int samples;
+
+    public PriceTrend(double priceMean, double priceStdDev, double trendPerHour, double volumeMean, int samples) {
+        this.priceMean = priceMean;
+        this.priceStdDev = priceStdDev;
+        this.trendPerHour = trendPerHour;
+        this.volumeMean = volumeMean;
+        this.samples = samples;
+    }
+}
@@ -0,0 +1,67 @@
+package com.rcnoob.alchcopilot.model;
+
+import com.rcnoob.alchcopilot.service.VolumeChecker;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// recommendations kept for one criteria profile, sorted by gp/hour
+public class RecommendationList {
+
+    private final List<AlchItem> recommendations = new ArrayList<>();
+    private final Set<Integer> recommendedItemIds = new HashSet<>();
+
+    // add item to recommendations list, avoiding duplicates. returns false if it was already present
+    public synchronized boolean add(AlchItem item, VolumeChecker.VolumeData volumeData, int maxRecommendations) {
+        if (recommendedItemIds.contains(item.getItemId())) {
+            return false;
+        }
+
+        if (volumeData != null) {
+            item.setVolumeData(volumeData);
+        }
+
+        // add item and re-sort by gp/hour (descending), alchs per hour is constant so profit orders the same
+        recommendations.add(item);
+        recommendedItemIds.add(item.getItemId());
+        recommendations.sort(Comparator.comparingInt(AlchItem::getHighAlchProfit).reversed());
+
+        // trim list to max size (remove from end since list is sorted)
+        while (recommendations.size() > maxRecommendations) {
+            AlchItem removed = recommendations.remove(recommendations.size() - 1);
+            recommendedItemIds.remove(removed.getItemId());
+        }
+        return true;
+    }
+
+    // matched by id like the id set, so the two can't drift apart when given a different instance
+    public synchronized void remove(AlchItem item) {
+        recommendations.removeIf(recommended -> recommended.getItemId() == item.getItemId());
+        recommendedItemIds.remove(item.getItemId());
+    }
+
+    public synchronized void clear() {
+        recommendations.clear();
+        recommendedItemIds.clear();
+    }
+
+    public synchronized List<AlchItem> getItems() {
+        return new ArrayList<>(recommendations);
+    }
+
+    // copy of the recommended ids, used to exclude them from new searches
+    public synchronized Set<Integer> getItemIds() {
+        return new HashSet<>(recommendedItemIds);
+    }
+
+    public synchronized int size() {
+        return recommendations.size();
+    }
+
+    public synchronized boolean isEmpty() {
+        return recommendations.isEmpty();
+    }
+}
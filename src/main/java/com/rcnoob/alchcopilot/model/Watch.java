@@ -0,0 +1,21 @@
+package com.rcnoob.alchcopilot.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+// alert once an item's profit per alch rises to the target
+@Getter
+@Setter
+public class Watch {
+    private final int itemId;
+    private final String name;
+    private final int targetProfit;
+    // the profit was at or above the target when last checked, saved so a restart doesn't alert again
+    private boolean met;
+
+    public Watch(int itemId, String name, int targetProfit) {
+        this.itemId = itemId;
+        this.name = name;
+        this.targetProfit = targetProfit;
+    }
+}
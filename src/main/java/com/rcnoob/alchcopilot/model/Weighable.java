@@ -0,0 +1,6 @@
+package com.rcnoob.alchcopilot.model;
+
+// values that can estimate their own retained size for cache accounting
+public interface Weighable {
+    long estimateBytes();
+}
@@ -0,0 +1,137 @@
+package com.rcnoob.alchcopilot.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+// LRU map bounded by the estimated bytes of its values rather than the entry count
+public class BoundedCache<K, V> {
+
+    private final String name;
+    private final ToLongFunction<V> weigher;
+    // access order, so iteration starts at the least recently used entry
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long maxWeight;
+    private long weight = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    private static class Entry<V> {
+        final V value;
+        final long weight;
+
+        Entry(V value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    BoundedCache(String name, long maxWeight, ToLongFunction<V> weigher) {
+        this.name = name;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    // cached value, or the loader's result which is then cached unless null
+    public synchronized V computeIfAbsent(K key, Function<K, V> loader) {
+        V value = get(key);
+        if (value == null) {
+            value = loader.apply(key);
+            if (value != null) {
+                put(key, value);
+            }
+        }
+        return value;
+    }
+
+    public synchronized void put(K key, V value) {
+        long valueWeight = Math.max(1, weigher.applyAsLong(value));
+        Entry<V> previous = entries.put(key, new Entry<>(value, valueWeight));
+        if (previous != null) {
+            weight -= previous.weight;
+        }
+        weight += valueWeight;
+        evictToFit();
+    }
+
+    public synchronized V putIfAbsent(K key, V value) {
+        Entry<V> existing = entries.get(key);
+        if (existing != null) {
+            return existing.value;
+        }
+        put(key, value);
+        return null;
+    }
+
+    // replace an existing value in place, a null result removes it
+    public synchronized void computeIfPresent(K key, BiFunction<K, V, V> remapping) {
+        Entry<V> existing = entries.get(key);
+        if (existing == null) {
+            return;
+        }
+
+        V value = remapping.apply(key, existing.value);
+        if (value == null) {
+            remove(key);
+        } else {
+            put(key, value);
+        }
+    }
+
+    public synchronized boolean containsKey(K key) {
+        return entries.containsKey(key);
+    }
+
+    public synchronized void remove(K key) {
+        Entry<V> removed = entries.remove(key);
+        if (removed != null) {
+            weight -= removed.weight;
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    synchronized void setMaxWeight(long maxWeight) {
+        this.maxWeight = maxWeight;
+        evictToFit();
+    }
+
+    public synchronized CacheStats stats() {
+        return new CacheStats(name, entries.size(), weight, maxWeight, hits, misses, evictions);
+    }
+
+    // drop least recently used entries until the cache fits its share of the budget
+    private void evictToFit() {
+        Iterator<Entry<V>> iterator = entries.values().iterator();
+        while (weight > maxWeight && iterator.hasNext()) {
+            weight -= iterator.next().weight;
+            iterator.remove();
+            evictions++;
+        }
+    }
+}
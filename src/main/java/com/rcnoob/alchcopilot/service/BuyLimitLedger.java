@@ -0,0 +1,198 @@
+package com.rcnoob.alchcopilot.service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.GrandExchangeOffer;
+import net.runelite.api.GrandExchangeOfferState;
+import net.runelite.client.config.ConfigManager;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// quantity bought per item within its 4-hour buy limit window, built from grand exchange offer updates.
+// offers report their cumulative fill, the last report of each slot turns that into increments
+@Slf4j
+@Singleton
+public class BuyLimitLedger {
+
+    public static final String CONFIG_KEY = "buyLimitLedger";
+    private static final String CONFIG_GROUP = "AlchCopilotPlugin";
+    // the limit resets this long after the first purchase of a window
+    private static final long WINDOW_MILLIS = TimeUnit.HOURS.toMillis(4);
+    private static final int SLOTS = 8;
+
+    private final ConfigManager configManager;
+    private final Gson gson;
+
+    // the open window of every item bought in the last four hours
+    private final Map<Integer, Window> windows = new HashMap<>();
+    // last fill of the buy offer in each slot, null for empty and sell slots
+    private final SlotFill[] slots = new SlotFill[SLOTS];
+    // limits are per account, nothing is read or saved until one is logged in
+    private boolean loaded = false;
+
+    // one item's purchases since its window opened
+    private static class Window {
+        long openedAt;
+        int bought;
+
+        Window(long openedAt) {
+            this.openedAt = openedAt;
+        }
+
+        boolean isExpired(long now) {
+            return now - openedAt >= WINDOW_MILLIS;
+        }
+    }
+
+    // a buy offer as last reported, its item, size and price tell it apart from the next offer in the slot
+    private static class SlotFill {
+        int itemId;
+        int totalQuantity;
+        int price;
+        int quantityBought;
+
+        SlotFill(int itemId, int totalQuantity, int price, int quantityBought) {
+            this.itemId = itemId;
+            this.totalQuantity = totalQuantity;
+            this.price = price;
+            this.quantityBought = quantityBought;
+        }
+
+        boolean isSameOffer(GrandExchangeOffer offer) {
+            return itemId == offer.getItemId() && totalQuantity == offer.getTotalQuantity() && price == offer.getPrice()
+                    && quantityBought <= offer.getQuantitySold();
+        }
+    }
+
+    // what is kept between sessions, the slots let fills made while logged out be counted on the next login
+    private static class Saved {
+        Map<Integer, Window> windows;
+        SlotFill[] slots;
+    }
+
+    @Inject
+    public BuyLimitLedger(ConfigManager configManager, Gson gson) {
+        this.configManager = configManager;
+        this.gson = gson;
+    }
+
+    // read the logged in account's ledger, dropping windows that have reset since
+    public synchronized void load() {
+        windows.clear();
+        Arrays.fill(slots, null);
+        loaded = true;
+
+        String json = configManager.getRSProfileConfiguration(CONFIG_GROUP, CONFIG_KEY);
+        if (json == null || json.isEmpty()) {
+            return;
+        }
+
+        try {
+            Saved saved = gson.fromJson(json, Saved.class);
+            long now = System.currentTimeMillis();
+            if (saved.windows != null) {
+                saved.windows.forEach((itemId, window) -> {
+                    if (!window.isExpired(now)) {
+                        windows.put(itemId, window);
+                    }
+                });
+            }
+            if (saved.slots != null) {
+                System.arraycopy(saved.slots, 0, slots, 0, Math.min(SLOTS, saved.slots.length));
+            }
+            log.debug("Loaded buy limit windows for {} items", windows.size());
+        } catch (JsonParseException e) {
+            log.warn("Ignoring unreadable buy limit ledger: {}", e.getMessage());
+        }
+    }
+
+    // forget the account on logout, the next login loads its own
+    public synchronized void unload() {
+        windows.clear();
+        Arrays.fill(slots, null);
+        loaded = false;
+    }
+
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    // account for an offer update, true when it bought more of an item
+    public synchronized boolean onOfferChanged(int slot, GrandExchangeOffer offer) {
+        if (!loaded || slot < 0 || slot >= SLOTS || offer == null) {
+            return false;
+        }
+
+        GrandExchangeOfferState state = offer.getState();
+        // slots are reported empty while logging in, so a collected offer is only replaced by the next one
+        if (state == GrandExchangeOfferState.EMPTY) {
+            return false;
+        }
+
+        if (state != GrandExchangeOfferState.BUYING && state != GrandExchangeOfferState.BOUGHT
+                && state != GrandExchangeOfferState.CANCELLED_BUY) {
+            if (slots[slot] != null) {
+                slots[slot] = null;
+                save();
+            }
+            return false;
+        }
+
+        // the same offer only ever fills further, anything else is a new offer counted from zero
+        SlotFill previous = slots[slot];
+        boolean sameOffer = previous != null && previous.isSameOffer(offer);
+        int quantityBought = offer.getQuantitySold();
+        int increment = sameOffer ? quantityBought - previous.quantityBought : quantityBought;
+        if (sameOffer && increment == 0) {
+            return false;
+        }
+
+        slots[slot] = new SlotFill(offer.getItemId(), offer.getTotalQuantity(), offer.getPrice(), quantityBought);
+        if (increment > 0) {
+            record(offer.getItemId(), increment, System.currentTimeMillis());
+        }
+        save();
+        return increment > 0;
+    }
+
+    // how much of the item's limit can still be bought, the full limit when nothing was bought in the last
+    // four hours or the limit is unknown
+    public synchronized int getRemainingLimit(int itemId, int geLimit) {
+        if (geLimit <= 0 || windows.isEmpty()) {
+            return geLimit;
+        }
+
+        Window window = windows.get(itemId);
+        if (window == null || window.isExpired(System.currentTimeMillis())) {
+            return geLimit;
+        }
+        return Math.max(0, geLimit - window.bought);
+    }
+
+    // the first purchase opens the window, the limit resets four hours later no matter what was bought since
+    private void record(int itemId, int quantity, long now) {
+        Window window = windows.get(itemId);
+        if (window == null || window.isExpired(now)) {
+            window = new Window(now);
+            windows.put(itemId, window);
+        }
+        window.bought += quantity;
+        log.debug("Bought {} of item {}, {} in the current limit window", quantity, itemId, window.bought);
+    }
+
+    private void save() {
+        long now = System.currentTimeMillis();
+        windows.values().removeIf(window -> window.isExpired(now));
+
+        Saved saved = new Saved();
+        saved.windows = windows;
+        saved.slots = slots;
+        configManager.setRSProfileConfiguration(CONFIG_GROUP, CONFIG_KEY, gson.toJson(saved));
+    }
+}
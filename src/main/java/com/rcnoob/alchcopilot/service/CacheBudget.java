@@ -0,0 +1,70 @@
+package com.rcnoob.alchcopilot.service;
+
+import com.rcnoob.alchcopilot.AlchCopilotConfig;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToLongFunction;
+
+// splits the configured memory budget between every cache the plugin keeps
+@Slf4j
+@Singleton
+public class CacheBudget {
+
+    private static final long BYTES_PER_MB = 1024L * 1024L;
+
+    private final AlchCopilotConfig config;
+    private final Map<String, Registration> caches = new ConcurrentHashMap<>();
+
+    private static class Registration {
+        final BoundedCache<?, ?> cache;
+        final double share;
+
+        Registration(BoundedCache<?, ?> cache, double share) {
+            this.cache = cache;
+            this.share = share;
+        }
+    }
+
+    @Inject
+    public CacheBudget(AlchCopilotConfig config) {
+        this.config = config;
+    }
+
+    // create a cache owning the given fraction of the budget, or return the one already registered under the name
+    @SuppressWarnings("unchecked")
+    public <K, V> BoundedCache<K, V> register(String name, double share, ToLongFunction<V> weigher) {
+        return (BoundedCache<K, V>) caches.computeIfAbsent(name,
+                key -> new Registration(new BoundedCache<>(name, maxWeight(share), weigher), share)).cache;
+    }
+
+    // re-read the budget and shrink or grow every cache to its share
+    public void refresh() {
+        for (Registration registration : caches.values()) {
+            registration.cache.setMaxWeight(maxWeight(registration.share));
+        }
+    }
+
+    public List<CacheStats> getStats() {
+        List<CacheStats> stats = new ArrayList<>();
+        for (Registration registration : caches.values()) {
+            stats.add(registration.cache.stats());
+        }
+        return stats;
+    }
+
+    public void logStats() {
+        for (CacheStats stats : getStats()) {
+            log.debug("Cache {}", stats);
+        }
+    }
+
+    private long maxWeight(double share) {
+        return (long) (config.memoryBudget() * BYTES_PER_MB * share);
+    }
+}
@@ -0,0 +1,36 @@
+package com.rcnoob.alchcopilot.service;
+
+import lombok.Getter;
+
+// point-in-time counters of one bounded cache
+@Getter
+public class CacheStats {
+    private final String name;
+    private final int size;
+    private final long weight;
+    private final long maxWeight;
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+
+    public CacheStats(String name, int size, long weight, long maxWeight, long hits, long misses, long evictions) {
+        this.name = name;
+        this.size = size;
+        this.weight = weight;
+        this.maxWeight = maxWeight;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+    }
+
+    public double getHitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d entries, %d/%d KB, %d hits, %d misses (%.0f%%), %d evictions",
+                name, size, weight / 1024, maxWeight / 1024, hits, misses, getHitRate() * 100, evictions);
+    }
+}
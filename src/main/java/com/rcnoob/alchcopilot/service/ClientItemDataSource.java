@@ -0,0 +1,96 @@
+package com.rcnoob.alchcopilot.service;
+
+import com.rcnoob.alchcopilot.AlchCopilotConfig;
+import com.rcnoob.alchcopilot.engine.ItemDataSource;
+import net.runelite.api.ItemComposition;
+import net.runelite.client.game.ItemManager;
+import net.runelite.client.game.ItemStats;
+import net.runelite.http.api.item.ItemPrice;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+// item data from the running client, must be captured on the client thread
+@Singleton
+public class ClientItemDataSource implements ItemDataSource {
+
+    private final ItemManager itemManager;
+    private final ItemMappingService itemMappingService;
+    private final ItemDatabaseService itemDatabaseService;
+    private final AlchCopilotConfig config;
+    private final BuyLimitLedger buyLimitLedger;
+
+    @Inject
+    public ClientItemDataSource(ItemManager itemManager, ItemMappingService itemMappingService,
+                                ItemDatabaseService itemDatabaseService, AlchCopilotConfig config,
+                                BuyLimitLedger buyLimitLedger) {
+        this.itemManager = itemManager;
+        this.itemMappingService = itemMappingService;
+        this.itemDatabaseService = itemDatabaseService;
+        this.config = config;
+        this.buyLimitLedger = buyLimitLedger;
+    }
+
+    @Override
+    public void forEachItem(ItemVisitor visitor) {
+        // static metadata from the wiki mapping, falls back to per-item client lookups until loaded
+        ItemMappingService.Mapping mapping = itemMappingService.getMapping();
+        if (mapping == null) {
+            itemMappingService.load();
+        }
+
+        for (ItemPrice price : itemManager.search("")) {
+            int itemId = price.getId();
+
+            if (mapping != null && mapping.contains(itemId)) {
+                Boolean members = mapping.getMembers(itemId);
+                visitor.visit(itemId, price.getName(), itemManager.getWikiPrice(price),
+                        mapping.getHighAlch(itemId), mapping.getGeLimit(itemId),
+                        members != null ? members : resolveMembership(itemId));
+                continue;
+            }
+
+            ItemComposition itemComposition = itemManager.getItemComposition(itemId);
+            ItemStats itemStats = itemManager.getItemStats(itemId);
+
+            // neither source has an alch value and limit for the item
+            if (itemStats == null || itemComposition == null) {
+                continue;
+            }
+
+            visitor.visit(itemId, price.getName(), itemManager.getWikiPrice(price),
+                    itemComposition.getHaPrice(), itemStats.getGeLimit(), itemComposition.isMembers());
+        }
+    }
+
+    @Override
+    public int getNatureRunePrice() {
+        return itemManager.getItemPrice(net.runelite.api.gameval.ItemID.NATURERUNE);
+    }
+
+    @Override
+    public int getRemainingLimit(int itemId, int geLimit) {
+        return buyLimitLedger.getRemainingLimit(itemId, geLimit);
+    }
+
+    // membership of a mapped item the mapping doesn't flag, from the client cache or, when enabled and the
+    // client has no composition either, the remote database. that is rare enough that the database is only
+    // downloaded once a lookup actually gets this far
+    private Boolean resolveMembership(int itemId) {
+        ItemComposition itemComposition = itemManager.getItemComposition(itemId);
+        if (itemComposition != null) {
+            return itemComposition.isMembers();
+        }
+
+        if (!config.useRemoteMembershipDatabase()) {
+            return null;
+        }
+
+        Boolean isMembers = itemDatabaseService.getMembershipStatusSync(itemId);
+        if (isMembers == null) {
+            // kick off a background load so later searches can use it
+            itemDatabaseService.isItemMembersOnly(itemId);
+        }
+        return isMembers;
+    }
+}
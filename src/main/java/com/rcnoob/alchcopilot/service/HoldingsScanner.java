@@ -0,0 +1,160 @@
+package com.rcnoob.alchcopilot.service;
+
+import com.rcnoob.alchcopilot.engine.ItemTable;
+import com.rcnoob.alchcopilot.model.Holding;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.Item;
+import net.runelite.api.ItemContainer;
+import net.runelite.client.game.ItemManager;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+// keeps a live, profit-sorted list of owned items worth alching, updated per changed container slot
+@Slf4j
+@Singleton
+public class HoldingsScanner {
+
+    private static final Comparator<Holding> BY_TOTAL_PROFIT =
+            Comparator.comparingLong(Holding::getTotalProfit).reversed().thenComparingInt(Holding::getItemId);
+
+    private final ItemManager itemManager;
+
+    // last seen slots per container, canonical ids
+    private final Map<Integer, int[]> slotIds = new HashMap<>();
+    private final Map<Integer, int[]> slotQuantities = new HashMap<>();
+    // owned quantity per item across every tracked container
+    private final Map<Integer, Long> quantities = new HashMap<>();
+
+    // profit of alching one instead of selling it, indexed by table row
+    private ItemTable table;
+    private int[] profitIndex;
+
+    private final Map<Integer, Holding> holdings = new HashMap<>();
+    private final TreeSet<Holding> sorted = new TreeSet<>(BY_TOTAL_PROFIT);
+
+    @Inject
+    public HoldingsScanner(ItemManager itemManager) {
+        this.itemManager = itemManager;
+    }
+
+    public synchronized boolean hasPrices() {
+        return table != null;
+    }
+
+    // rebuild the profit index from freshly captured prices and re-rank everything held
+    public synchronized void updatePrices(ItemTable itemTable) {
+        int natureRunePrice = itemTable.getNatureRunePrice();
+        int[] index = new int[itemTable.size()];
+        for (int row = 0; row < index.length; row++) {
+            index[row] = itemTable.getHighAlch(row) - itemTable.getPrice(row) - natureRunePrice;
+        }
+        table = itemTable;
+        profitIndex = index;
+
+        for (int itemId : new ArrayList<>(quantities.keySet())) {
+            refresh(itemId);
+        }
+    }
+
+    // diff the container against its last state and re-evaluate only the items whose slots changed
+    public synchronized boolean onContainerChanged(int containerId, ItemContainer container) {
+        Item[] items = container != null ? container.getItems() : new Item[0];
+        int[] previousIds = slotIds.getOrDefault(containerId, new int[0]);
+        int[] previousQuantities = slotQuantities.getOrDefault(containerId, new int[0]);
+        int[] ids = new int[items.length];
+        int[] amounts = new int[items.length];
+        Set<Integer> changed = new HashSet<>();
+
+        int slots = Math.max(items.length, previousIds.length);
+        for (int slot = 0; slot < slots; slot++) {
+            int id = -1;
+            int quantity = 0;
+            if (slot < items.length && items[slot] != null && items[slot].getQuantity() > 0) {
+                id = items[slot].getId();
+                quantity = items[slot].getQuantity();
+            }
+
+            int previousId = slot < previousIds.length ? previousIds[slot] : -1;
+            int previousQuantity = slot < previousQuantities.length ? previousQuantities[slot] : 0;
+
+            // noted stacks count towards the unnoted item, unchanged unnoted slots skip the lookup
+            if (id != -1 && id != previousId) {
+                id = itemManager.canonicalize(id);
+            }
+
+            if (slot < items.length) {
+                ids[slot] = id;
+                amounts[slot] = quantity;
+            }
+
+            if (id == previousId && quantity == previousQuantity) {
+                continue;
+            }
+
+            if (previousId != -1) {
+                adjust(previousId, -previousQuantity);
+                changed.add(previousId);
+            }
+            if (id != -1) {
+                adjust(id, quantity);
+                changed.add(id);
+            }
+        }
+
+        slotIds.put(containerId, ids);
+        slotQuantities.put(containerId, amounts);
+
+        for (int itemId : changed) {
+            refresh(itemId);
+        }
+        return !changed.isEmpty();
+    }
+
+    public synchronized List<Holding> getHoldings() {
+        return new ArrayList<>(sorted);
+    }
+
+    public synchronized void clear() {
+        slotIds.clear();
+        slotQuantities.clear();
+        quantities.clear();
+        holdings.clear();
+        sorted.clear();
+    }
+
+    private void adjust(int itemId, long delta) {
+        long quantity = quantities.getOrDefault(itemId, 0L) + delta;
+        if (quantity > 0) {
+            quantities.put(itemId, quantity);
+        } else {
+            quantities.remove(itemId);
+        }
+    }
+
+    // re-rank a single item, dropping it if it's gone or no longer worth alching
+    private void refresh(int itemId) {
+        Holding previous = holdings.remove(itemId);
+        if (previous != null) {
+            sorted.remove(previous);
+        }
+
+        long quantity = quantities.getOrDefault(itemId, 0L);
+        int row = table != null ? table.indexOf(itemId) : -1;
+        if (quantity <= 0 || row < 0 || profitIndex[row] <= 0) {
+            return;
+        }
+
+        Holding holding = new Holding(itemId, table.getName(row), quantity, profitIndex[row]);
+        holdings.put(itemId, holding);
+        sorted.add(holding);
+    }
+}
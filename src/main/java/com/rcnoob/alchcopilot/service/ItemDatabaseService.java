@@ -3,6 +3,8 @@ package com.rcnoob.alchcopilot.service;
 import com.google.gson.Gson;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.rcnoob.alchcopilot.engine.ItemTable;
+import com.rcnoob.alchcopilot.model.Weighable;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
@@ -12,9 +14,9 @@ import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.io.IOException;
 import java.time.Duration;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 @Singleton
@@ -25,110 +27,121 @@ public class ItemDatabaseService {
 
     private final OkHttpClient httpClient;
     private final Gson gson;
-
-    // cache mapping item id to whether it's members-only
-    private final Map<Integer, Boolean> membershipCache = new ConcurrentHashMap<>();
-    private volatile long lastFetchTime = 0;
-    private volatile boolean fetchInProgress = false;
-    private CompletableFuture<Void> currentFetch = null;
+    private final SingleFlightFetcher singleFlightFetcher;
+    private final RequestScheduler requestScheduler;
 
     @Inject
-    public ItemDatabaseService(OkHttpClient httpClient, Gson gson) {
+    public ItemDatabaseService(OkHttpClient httpClient, Gson gson, SingleFlightFetcher singleFlightFetcher,
+                               RequestScheduler requestScheduler) {
         this.httpClient = httpClient.newBuilder()
                 .connectTimeout(Duration.ofSeconds(10))
                 .build();
         this.gson = gson;
+        this.singleFlightFetcher = singleFlightFetcher;
+        this.requestScheduler = requestScheduler;
     }
 
-    // check if item is members-only, fetch data if needed
-    public CompletableFuture<Boolean> isItemMembersOnly(int itemId) {
-        if (membershipCache.containsKey(itemId)) {
-            return CompletableFuture.completedFuture(membershipCache.get(itemId));
+    // membership flags indexed by item id, kept as one value in the budgeted response cache so an eviction
+    // drops the whole table and the next lookup loads it again
+    static class Membership implements Weighable {
+        private final byte[] members;
+        private final int flagged;
+
+        Membership(byte[] members, int flagged) {
+            this.members = members;
+            this.flagged = flagged;
         }
 
-        if (isCacheRecent()) {
-            return CompletableFuture.completedFuture(null);
+        // null when the database doesn't flag the item
+        Boolean get(int itemId) {
+            if (itemId < 0 || itemId >= members.length || members[itemId] == ItemTable.MEMBERS_UNKNOWN) {
+                return null;
+            }
+            return members[itemId] == ItemTable.MEMBERS_P2P;
         }
 
-        return ensureDatabaseLoaded().thenApply(v -> membershipCache.get(itemId));
+        @Override
+        public long estimateBytes() {
+            return members.length;
+        }
+    }
+
+    // check if item is members-only, fetch data if it isn't loaded or has been evicted
+    public CompletableFuture<Boolean> isItemMembersOnly(int itemId) {
+        Membership membership = singleFlightFetcher.getCached(ITEM_DB_URL);
+        if (membership != null && isCacheRecent()) {
+            return CompletableFuture.completedFuture(membership.get(itemId));
+        }
+
+        return loadDatabase().thenApply(loaded -> loaded.get(itemId));
     }
 
     // get membership status without triggering fetch
     public Boolean getMembershipStatusSync(int itemId) {
-        return membershipCache.get(itemId);
+        Membership membership = singleFlightFetcher.getCached(ITEM_DB_URL);
+        return membership != null ? membership.get(itemId) : null;
     }
 
     // force refresh of the entire database
     public CompletableFuture<Void> refreshDatabase() {
         log.info("Forcing refresh of item database");
-        lastFetchTime = 0; // Invalidate cache
+        singleFlightFetcher.invalidate(ITEM_DB_URL);
         return ensureDatabaseLoaded();
     }
 
+    // items the loaded database flags either way, 0 when it isn't loaded
     public int getCacheSize() {
-        return membershipCache.size();
+        Membership membership = singleFlightFetcher.getCached(ITEM_DB_URL);
+        return membership != null ? membership.flagged : 0;
     }
 
     // check if cached data is still fresh
     public boolean isCacheRecent() {
-        return System.currentTimeMillis() - lastFetchTime < CACHE_DURATION.toMillis();
+        return singleFlightFetcher.isFresh(ITEM_DB_URL);
     }
 
-    // ensure database is loaded, avoid duplicate fetches
+    // ensure database is loaded, concurrent callers share one download
     private CompletableFuture<Void> ensureDatabaseLoaded() {
-        if (isCacheRecent()) {
-            return CompletableFuture.completedFuture(null);
-        }
-
-        synchronized (this) {
-            if (fetchInProgress && currentFetch != null) {
-                return currentFetch;
-            }
+        return loadDatabase().thenApply(membership -> null);
+    }
 
-            fetchInProgress = true;
-            currentFetch = fetchItemDatabase();
-            return currentFetch;
-        }
+    // the loaded table itself, so a lookup still gets its answer if the cache evicts it straight away
+    private CompletableFuture<Membership> loadDatabase() {
+        return singleFlightFetcher.fetch(ITEM_DB_URL, CACHE_DURATION, this::fetchItemDatabase)
+                .whenComplete((result, throwable) -> {
+                    if (throwable != null) {
+                        log.error("Failed to fetch item database", throwable);
+                    }
+                });
     }
 
     // download and parse item database from github
-    private CompletableFuture<Void> fetchItemDatabase() {
+    private Membership fetchItemDatabase() throws IOException {
         log.info("Fetching item database from: {}", ITEM_DB_URL);
+        requestScheduler.acquire(ITEM_DB_URL, RequestScheduler.Priority.BACKGROUND);
 
         Request request = new Request.Builder()
                 .url(ITEM_DB_URL)
                 .header("User-Agent", "AlchCopilot-RuneLite-Plugin")
                 .build();
 
-        return CompletableFuture.supplyAsync(() -> {
-                    try (Response response = httpClient.newCall(request).execute()) {
-                        if (!response.isSuccessful()) {
-                            throw new RuntimeException("Failed to fetch item database: HTTP " + response.code());
-                        }
-                        return response.body().string();
-                    } catch (IOException e) {
-                        throw new RuntimeException("Failed to fetch item database", e);
-                    }
-                }).thenAccept(this::parseAndCacheItems)
-                .whenComplete((result, throwable) -> {
-                    synchronized (this) {
-                        fetchInProgress = false;
-                        if (throwable == null) {
-                            lastFetchTime = System.currentTimeMillis();
-                            log.info("Successfully loaded {} items into membership cache", membershipCache.size());
-                        } else {
-                            log.error("Failed to fetch item database", throwable);
-                        }
-                    }
-                });
+        try (Response response = httpClient.newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                throw new IOException("Failed to fetch item database: HTTP " + response.code());
+            }
+            Membership membership = parseItems(response.body().string());
+            log.info("Successfully loaded {} items into membership cache", membership.flagged);
+            return membership;
+        }
     }
 
     // parse JSON and extract membership info for each item
-    private void parseAndCacheItems(String jsonData) {
+    private Membership parseItems(String jsonData) {
         try {
             log.debug("Parsing item database JSON...");
             JsonObject rootObject = gson.fromJson(jsonData, JsonObject.class);
 
+            byte[] members = new byte[0];
             int parsed = 0;
             int membersItems = 0;
             int f2pItems = 0;
@@ -142,7 +155,13 @@ public class ItemDatabaseService {
                     // extract membership requirement
                     if (itemData.has("members")) {
                         boolean isMembers = itemData.get("members").getAsBoolean();
-                        membershipCache.put(itemId, isMembers);
+                        if (itemId >= members.length) {
+                            int length = Math.max(itemId + 1, members.length * 3 / 2);
+                            int previous = members.length;
+                            members = Arrays.copyOf(members, length);
+                            Arrays.fill(members, previous, length, ItemTable.MEMBERS_UNKNOWN);
+                        }
+                        members[itemId] = isMembers ? ItemTable.MEMBERS_P2P : ItemTable.MEMBERS_F2P;
 
                         if (isMembers) {
                             membersItems++;
@@ -160,22 +179,11 @@ public class ItemDatabaseService {
             }
 
             log.info("Parsed {} items: {} F2P, {} Members", parsed, f2pItems, membersItems);
+            return new Membership(members, parsed);
 
         } catch (Exception e) {
             log.error("Error parsing item database JSON", e);
             throw new RuntimeException("Failed to parse item database", e);
         }
     }
-
-    // cleanup resources on shutdown
-    public void shutdown() {
-        try {
-            if (currentFetch != null && !currentFetch.isDone()) {
-                currentFetch.cancel(true);
-            }
-        } catch (Exception e) {
-            log.debug("Error during shutdown", e);
-        }
-        membershipCache.clear();
-    }
-}
\ No newline at end of file
+}
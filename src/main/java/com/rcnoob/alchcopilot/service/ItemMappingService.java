@@ -0,0 +1,186 @@
+package com.rcnoob.alchcopilot.service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.rcnoob.alchcopilot.engine.ItemTable;
+import com.rcnoob.alchcopilot.model.Weighable;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.RuneLite;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+@Slf4j
+@Singleton
+public class ItemMappingService {
+
+    // OSRS wiki API for static item metadata (id, members, limit, highalch, name)
+    private static final String MAPPING_URL = "https://prices.runescape.wiki/api/v1/osrs/mapping";
+    private static final Duration REVALIDATE_AFTER = Duration.ofHours(24);
+
+    private static final File CACHE_DIR = new File(RuneLite.RUNELITE_DIR, "alch-copilot");
+    private static final File MAPPING_FILE = new File(CACHE_DIR, "mapping.json");
+    private static final File MAPPING_META_FILE = new File(CACHE_DIR, "mapping.etag");
+
+    private final PricesApiClient pricesApiClient;
+    private final Gson gson;
+    private final SingleFlightFetcher singleFlightFetcher;
+
+    @Inject
+    public ItemMappingService(PricesApiClient pricesApiClient, Gson gson, SingleFlightFetcher singleFlightFetcher) {
+        this.pricesApiClient = pricesApiClient;
+        this.gson = gson;
+        this.singleFlightFetcher = singleFlightFetcher;
+    }
+
+    // flat, id-indexed metadata arrays built from a single mapping document
+    public static class Mapping implements Weighable {
+        private final boolean[] known;
+        // entries without a members flag are left unknown rather than read as free to play
+        private final byte[] members;
+        private final int[] highAlch;
+        private final int[] geLimit;
+
+        Mapping(int size) {
+            known = new boolean[size];
+            members = new byte[size];
+            highAlch = new int[size];
+            geLimit = new int[size];
+        }
+
+        public boolean contains(int itemId) {
+            return itemId >= 0 && itemId < known.length && known[itemId];
+        }
+
+        // null when the mapping doesn't say
+        public Boolean getMembers(int itemId) {
+            if (!contains(itemId) || members[itemId] == ItemTable.MEMBERS_UNKNOWN) {
+                return null;
+            }
+            return members[itemId] == ItemTable.MEMBERS_P2P;
+        }
+
+        public int getHighAlch(int itemId) {
+            return contains(itemId) ? highAlch[itemId] : 0;
+        }
+
+        public int getGeLimit(int itemId) {
+            return contains(itemId) ? geLimit[itemId] : 0;
+        }
+
+        // four flat arrays per id slot, names come from the client's price list
+        @Override
+        public long estimateBytes() {
+            return (long) known.length * (1 + 1 + 4 + 4);
+        }
+    }
+
+    // get the loaded mapping without triggering a fetch, null until loaded. it lives in the budgeted response
+    // cache, once evicted this is null again until the next load reads it back from disk
+    public Mapping getMapping() {
+        return singleFlightFetcher.getCached(MAPPING_URL);
+    }
+
+    public boolean isLoaded() {
+        return getMapping() != null;
+    }
+
+    // load mapping from disk or network, concurrent callers share one load
+    public CompletableFuture<Mapping> load() {
+        return singleFlightFetcher.fetch(MAPPING_URL, REVALIDATE_AFTER, this::fetchMapping)
+                .whenComplete((result, throwable) -> {
+                    if (throwable != null) {
+                        log.warn("Failed to load item mapping: {}", throwable.getMessage());
+                    }
+                });
+    }
+
+    private boolean isDiskCacheStale() {
+        return !MAPPING_FILE.exists()
+                || System.currentTimeMillis() - MAPPING_FILE.lastModified() > REVALIDATE_AFTER.toMillis();
+    }
+
+    // read the cached document, revalidating it against the API once it is stale
+    private Mapping fetchMapping() {
+        try {
+            if (!isDiskCacheStale()) {
+                log.debug("Using cached item mapping from {}", MAPPING_FILE);
+                return parseMapping(readFile(MAPPING_FILE));
+            }
+
+            String etag = MAPPING_FILE.exists() && MAPPING_META_FILE.exists() ? readFile(MAPPING_META_FILE) : null;
+            PricesApiClient.ApiResponse response = pricesApiClient.get(MAPPING_URL, etag, RequestScheduler.Priority.BACKGROUND);
+
+            if (response.isNotModified()) {
+                log.debug("Item mapping not modified, reusing cached copy");
+                MAPPING_FILE.setLastModified(System.currentTimeMillis());
+                return parseMapping(readFile(MAPPING_FILE));
+            }
+
+            Mapping parsed = parseMapping(response.body);
+            writeCache(response.body, response.etag);
+            return parsed;
+        } catch (IOException e) {
+            // fall back to a stale copy rather than nothing
+            if (MAPPING_FILE.exists()) {
+                log.warn("Failed to revalidate item mapping ({}), using stale cache", e.getMessage());
+                try {
+                    return parseMapping(readFile(MAPPING_FILE));
+                } catch (IOException ignored) {
+                }
+            }
+            throw new RuntimeException("Failed to fetch item mapping", e);
+        }
+    }
+
+    // parse the mapping array into flat id-indexed arrays
+    private Mapping parseMapping(String jsonData) {
+        JsonArray items = gson.fromJson(jsonData, JsonArray.class);
+
+        int maxId = 0;
+        for (JsonElement element : items) {
+            maxId = Math.max(maxId, element.getAsJsonObject().get("id").getAsInt());
+        }
+
+        Mapping parsed = new Mapping(maxId + 1);
+        for (JsonElement element : items) {
+            JsonObject item = element.getAsJsonObject();
+            int itemId = item.get("id").getAsInt();
+
+            parsed.known[itemId] = true;
+            parsed.members[itemId] = !item.has("members") ? ItemTable.MEMBERS_UNKNOWN
+                    : item.get("members").getAsBoolean() ? ItemTable.MEMBERS_P2P : ItemTable.MEMBERS_F2P;
+            parsed.highAlch[itemId] = item.has("highalch") ? item.get("highalch").getAsInt() : 0;
+            parsed.geLimit[itemId] = item.has("limit") ? item.get("limit").getAsInt() : 0;
+        }
+
+        log.info("Loaded item mapping with {} items", items.size());
+        return parsed;
+    }
+
+    private void writeCache(String body, String etag) {
+        try {
+            CACHE_DIR.mkdirs();
+            Files.write(MAPPING_FILE.toPath(), body.getBytes(StandardCharsets.UTF_8));
+            if (etag != null) {
+                Files.write(MAPPING_META_FILE.toPath(), etag.getBytes(StandardCharsets.UTF_8));
+            } else {
+                Files.deleteIfExists(MAPPING_META_FILE.toPath());
+            }
+        } catch (IOException e) {
+            log.debug("Unable to write item mapping cache: {}", e.getMessage());
+        }
+    }
+
+    private static String readFile(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+}
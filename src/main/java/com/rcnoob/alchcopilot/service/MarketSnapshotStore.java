@@ -0,0 +1,211 @@
+package com.rcnoob.alchcopilot.service;
+
+import com.rcnoob.alchcopilot.model.PriceSnapshot;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.RuneLite;
+
+import javax.inject.Singleton;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+// persists market snapshots in a columnar binary file so a restart doesn't start cold
+@Slf4j
+@Singleton
+public class MarketSnapshotStore {
+
+    private static final int MAGIC = 0x41434d53; // "ACMS"
+    private static final int FORMAT_VERSION = 1;
+
+    private static final byte SECTION_FIVE_MINUTE = 0;
+    private static final byte SECTION_ONE_HOUR = 1;
+    private static final byte SECTION_HISTORY = 2;
+
+    private static final File CACHE_DIR = new File(RuneLite.RUNELITE_DIR, "alch-copilot");
+    private static final File STORE_FILE = new File(CACHE_DIR, "market.bin");
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "alch-copilot-snapshot-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // only the newest pending state is written, older ones are superseded
+    private final AtomicReference<Stored> pending = new AtomicReference<>();
+
+    // everything restored from or written to disk
+    public static class Stored {
+        public final PriceSnapshot fiveMinute;
+        public final PriceSnapshot oneHour;
+        public final List<PriceSnapshot> history;
+
+        public Stored(PriceSnapshot fiveMinute, PriceSnapshot oneHour, List<PriceSnapshot> history) {
+            this.fiveMinute = fiveMinute;
+            this.oneHour = oneHour;
+            this.history = history;
+        }
+    }
+
+    // read the store file into the heap and decode it, null if missing or unreadable. the file isn't mapped,
+    // a live mapping would stop later saves from replacing it on Windows
+    public Stored load() {
+        if (!STORE_FILE.exists()) {
+            return null;
+        }
+
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(STORE_FILE.toPath()));
+
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                log.debug("Ignoring snapshot store with unknown format");
+                return null;
+            }
+
+            PriceSnapshot fiveMinute = null;
+            PriceSnapshot oneHour = null;
+            List<PriceSnapshot> history = new ArrayList<>();
+
+            int sections = buffer.getInt();
+            for (int i = 0; i < sections; i++) {
+                byte type = buffer.get();
+                PriceSnapshot snapshot = readSnapshot(buffer);
+                if (type == SECTION_FIVE_MINUTE) {
+                    fiveMinute = snapshot;
+                } else if (type == SECTION_ONE_HOUR) {
+                    oneHour = snapshot;
+                } else {
+                    history.add(snapshot);
+                }
+            }
+
+            // the latest 5m snapshot is only written separately when it isn't the newest history window
+            if (fiveMinute == null && !history.isEmpty()) {
+                fiveMinute = history.get(history.size() - 1);
+            }
+
+            log.debug("Restored market snapshots from {} ({} history windows)", STORE_FILE, history.size());
+            return new Stored(fiveMinute, oneHour, history);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Unable to read snapshot store: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    // queue a write of the latest state, superseding any write that hasn't started yet
+    public void saveAsync(Stored stored) {
+        if (pending.getAndSet(stored) == null) {
+            writer.execute(() -> write(pending.getAndSet(null)));
+        }
+    }
+
+    private void write(Stored stored) {
+        if (stored == null) {
+            return;
+        }
+
+        List<PriceSnapshot> sections = new ArrayList<>();
+        List<Byte> types = new ArrayList<>();
+        boolean fiveMinuteInHistory = !stored.history.isEmpty()
+                && stored.history.get(stored.history.size() - 1) == stored.fiveMinute;
+        if (stored.fiveMinute != null && !fiveMinuteInHistory) {
+            sections.add(stored.fiveMinute);
+            types.add(SECTION_FIVE_MINUTE);
+        }
+        if (stored.oneHour != null) {
+            sections.add(stored.oneHour);
+            types.add(SECTION_ONE_HOUR);
+        }
+        for (PriceSnapshot snapshot : stored.history) {
+            sections.add(snapshot);
+            types.add(SECTION_HISTORY);
+        }
+
+        int bytes = 12;
+        for (PriceSnapshot snapshot : sections) {
+            bytes += 1 + 12 + snapshot.size() * (4 + 4 + 4 + 8 + 8);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(bytes);
+        buffer.putInt(MAGIC);
+        buffer.putInt(FORMAT_VERSION);
+        buffer.putInt(sections.size());
+        for (int i = 0; i < sections.size(); i++) {
+            buffer.put(types.get(i));
+            writeSnapshot(buffer, sections.get(i));
+        }
+        buffer.flip();
+
+        try {
+            CACHE_DIR.mkdirs();
+            File temp = new File(CACHE_DIR, STORE_FILE.getName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp.toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            Files.move(temp.toPath(), STORE_FILE.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Unable to write snapshot store: {}", e.getMessage());
+        }
+    }
+
+    // timestamp, count, then one column per field
+    private static void writeSnapshot(ByteBuffer buffer, PriceSnapshot snapshot) {
+        int count = snapshot.size();
+        buffer.putLong(snapshot.getTimestamp());
+        buffer.putInt(count);
+        for (int i = 0; i < count; i++) {
+            buffer.putInt(snapshot.getItemId(i));
+        }
+        for (int i = 0; i < count; i++) {
+            buffer.putInt(snapshot.getAvgHighPrice(i));
+        }
+        for (int i = 0; i < count; i++) {
+            buffer.putInt(snapshot.getAvgLowPrice(i));
+        }
+        for (int i = 0; i < count; i++) {
+            buffer.putLong(snapshot.getHighPriceVolume(i));
+        }
+        for (int i = 0; i < count; i++) {
+            buffer.putLong(snapshot.getLowPriceVolume(i));
+        }
+    }
+
+    private static PriceSnapshot readSnapshot(ByteBuffer buffer) {
+        long timestamp = buffer.getLong();
+        int count = buffer.getInt();
+        // a corrupt count would otherwise size the columns from garbage, check it against what is left to read
+        if (count < 0 || count * 28L > buffer.remaining()) {
+            throw new IllegalStateException("Snapshot store section claims " + count + " items, only "
+                    + buffer.remaining() + " bytes left");
+        }
+
+        int[] itemIds = new int[count];
+        int[] avgHighPrice = new int[count];
+        int[] avgLowPrice = new int[count];
+        long[] highPriceVolume = new long[count];
+        long[] lowPriceVolume = new long[count];
+
+        buffer.asIntBuffer().get(itemIds);
+        buffer.position(buffer.position() + count * 4);
+        buffer.asIntBuffer().get(avgHighPrice);
+        buffer.position(buffer.position() + count * 4);
+        buffer.asIntBuffer().get(avgLowPrice);
+        buffer.position(buffer.position() + count * 4);
+        buffer.asLongBuffer().get(highPriceVolume);
+        buffer.position(buffer.position() + count * 8);
+        buffer.asLongBuffer().get(lowPriceVolume);
+        buffer.position(buffer.position() + count * 8);
+
+        return new PriceSnapshot(timestamp, itemIds, avgHighPrice, avgLowPrice, highPriceVolume, lowPriceVolume);
+    }
+}
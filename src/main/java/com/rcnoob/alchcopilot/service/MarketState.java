@@ -0,0 +1,35 @@
+package com.rcnoob.alchcopilot.service;
+
+import com.rcnoob.alchcopilot.engine.ItemTable;
+import com.rcnoob.alchcopilot.model.MarketSnapshot;
+import com.rcnoob.alchcopilot.model.PriceSnapshot;
+
+import javax.inject.Singleton;
+import java.util.concurrent.atomic.AtomicReference;
+
+// holds the current market snapshot. writers swap in a new snapshot, readers take one reference
+// and use it for the whole computation, so nothing needs a lock or a defensive copy
+@Singleton
+public class MarketState {
+    private final AtomicReference<MarketSnapshot> current = new AtomicReference<>(MarketSnapshot.EMPTY);
+
+    public MarketSnapshot get() {
+        return current.get();
+    }
+
+    public MarketSnapshot publishItems(ItemTable items) {
+        return current.updateAndGet(snapshot -> snapshot.withItems(items));
+    }
+
+    public MarketSnapshot publishFiveMinute(PriceSnapshot fiveMinute) {
+        return current.updateAndGet(snapshot -> snapshot.withFiveMinute(fiveMinute));
+    }
+
+    public MarketSnapshot publishOneHour(PriceSnapshot oneHour) {
+        return current.updateAndGet(snapshot -> snapshot.withOneHour(oneHour));
+    }
+
+    public void clear() {
+        current.updateAndGet(MarketSnapshot::cleared);
+    }
+}
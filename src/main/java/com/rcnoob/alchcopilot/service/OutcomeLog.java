@@ -0,0 +1,391 @@
+package com.rcnoob.alchcopilot.service;
+
+import com.rcnoob.alchcopilot.engine.ItemTable;
+import com.rcnoob.alchcopilot.model.AlchItem;
+import com.rcnoob.alchcopilot.model.MarketSnapshot;
+import com.rcnoob.alchcopilot.model.PriceSnapshot;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.RuneLite;
+
+import javax.inject.Singleton;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// append-only record of what was recommended and how the item's profit moved afterwards,
+// kept as fixed-width records in a memory-mapped file with an in-memory index of record numbers per item
+@Slf4j
+@Singleton
+public class OutcomeLog {
+
+    private static final int MAGIC = 0x41434f4c; // "ACOL"
+    private static final int FORMAT_VERSION = 1;
+
+    // magic, version, record count
+    private static final int HEADER_BYTES = 16;
+    // timestamp, item id, type, price, profit, daily volume, score
+    private static final int RECORD_BYTES = 32;
+    // the mapping grows this many records at a time
+    private static final int GROWTH_RECORDS = 32768;
+
+    private static final int TYPE_RECOMMENDED = 0;
+    private static final int TYPE_OBSERVED = 1;
+
+    // recommended items keep being observed for this long, and at most once per interval
+    private static final long OBSERVE_WINDOW_MILLIS = TimeUnit.DAYS.toMillis(30);
+    private static final long OBSERVE_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private static final File CACHE_DIR = new File(RuneLite.RUNELITE_DIR, "alch-copilot");
+    private static final File LOG_FILE = new File(CACHE_DIR, "outcomes.bin");
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long recordCount;
+    private boolean opened = false;
+    // set on shutdown so late async appends can't reopen the file, cleared when the plugin starts again
+    private boolean closed = false;
+    // record numbers of each item in append order, so newer records are always at the end
+    private final Map<Integer, Postings> index = new HashMap<>();
+    // 30-day outcome per recommended item, replaced whole whenever one changes so the EDT reads it without
+    // waiting on an index rebuild or a batch of observations
+    private volatile Map<Integer, ItemOutcome> recentOutcomes = Collections.emptyMap();
+
+    // how one item's recommendations turned out over a window
+    public static class ItemOutcome {
+        public final int itemId;
+        public final int recommendations;
+        public final int observations;
+        public final long recommendedProfit;
+        public final long realizedProfit;
+
+        ItemOutcome(int itemId, int recommendations, int observations, long recommendedProfit, long realizedProfit) {
+            this.itemId = itemId;
+            this.recommendations = recommendations;
+            this.observations = observations;
+            this.recommendedProfit = recommendedProfit;
+            this.realizedProfit = realizedProfit;
+        }
+
+        public double getAverageRecommendedProfit() {
+            return recommendations == 0 ? 0 : recommendedProfit / (double) recommendations;
+        }
+
+        // average profit seen in observations after the item was recommended
+        public double getAverageRealizedProfit() {
+            return observations == 0 ? 0 : realizedProfit / (double) observations;
+        }
+    }
+
+    // growable list of record numbers
+    private static class Postings {
+        int[] records = new int[4];
+        int size = 0;
+        long lastRecommendedAt = 0;
+        long lastObservedAt = 0;
+
+        void add(int record) {
+            if (size == records.length) {
+                records = Arrays.copyOf(records, size * 2);
+            }
+            records[size++] = record;
+        }
+    }
+
+    // log an item the moment it's added to the recommendations, with the score it was picked on
+    public synchronized void recordRecommendation(AlchItem item, VolumeChecker.VolumeData volumeData) {
+        long dailyVolume = volumeData != null ? volumeData.getEstimatedDailyVolume() : -1;
+        if (append(System.currentTimeMillis(), item.getItemId(), TYPE_RECOMMENDED, item.getGePrice(),
+                item.getHighAlchProfit(), dailyVolume, (float) item.score(volumeData))) {
+            publishRecentOutcomes(Collections.singletonList(item.getItemId()));
+        }
+    }
+
+    // log the price of every item recommended within the window at a newly published 5m window, throttled per
+    // item. called for every new window whether or not anyone searches, so outcomes aren't only sampled on
+    // days the user looks. the table only supplies the alch values and the nature rune price
+    public synchronized void recordObservations(MarketSnapshot market) {
+        ItemTable table = market.getItems();
+        PriceSnapshot fiveMinute = market.getFiveMinute();
+        if (table == null || fiveMinute == null || !open()) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        List<Integer> changed = new ArrayList<>();
+        for (Map.Entry<Integer, Postings> entry : index.entrySet()) {
+            int itemId = entry.getKey();
+            Postings postings = entry.getValue();
+            if (now - postings.lastRecommendedAt > OBSERVE_WINDOW_MILLIS) {
+                // aged out of the window since it was last published
+                if (recentOutcomes.containsKey(itemId)) {
+                    changed.add(itemId);
+                }
+                continue;
+            }
+            if (now - postings.lastObservedAt < OBSERVE_INTERVAL_MILLIS) {
+                continue;
+            }
+
+            int row = table.indexOf(itemId);
+            int window = fiveMinute.indexOf(itemId);
+            int price = window >= 0 ? fiveMinute.getMidPrice(window) : 0;
+            if (row < 0 || price <= 0) {
+                continue;
+            }
+
+            int profit = table.getHighAlch(row) - price - table.getNatureRunePrice();
+            VolumeChecker.VolumeData volumeData = market.getVolumeData(itemId);
+            long dailyVolume = volumeData != null ? volumeData.getEstimatedDailyVolume() : -1;
+            if (append(now, itemId, TYPE_OBSERVED, price, profit, dailyVolume, 0)) {
+                changed.add(itemId);
+            }
+        }
+        publishRecentOutcomes(changed);
+    }
+
+    // allow the log to open again after a shutdown, the file itself is only read on first use
+    public synchronized void start() {
+        closed = false;
+    }
+
+    // open the log and build its index ahead of the panel's first lookups, called off the client thread
+    public synchronized void load() {
+        open();
+    }
+
+    // how the item's recommendations of the last 30 days turned out, null if it had none. never locks, the
+    // panel calls this once per card on every rebuild
+    public ItemOutcome getRecentOutcome(int itemId) {
+        return recentOutcomes.get(itemId);
+    }
+
+    // recommendations and realized profit of one item since the given time, null if it was never recommended.
+    // queries never open the log themselves
+    public synchronized ItemOutcome getOutcome(int itemId, long sinceMillis) {
+        if (buffer == null) {
+            return null;
+        }
+
+        Postings postings = index.get(itemId);
+        return postings != null ? summarize(itemId, postings, sinceMillis) : null;
+    }
+
+    // every item recommended since the given time, best realized profit first
+    public synchronized List<ItemOutcome> getOutcomes(long sinceMillis) {
+        List<ItemOutcome> outcomes = new ArrayList<>();
+        if (buffer == null) {
+            return outcomes;
+        }
+
+        for (Map.Entry<Integer, Postings> entry : index.entrySet()) {
+            ItemOutcome outcome = summarize(entry.getKey(), entry.getValue(), sinceMillis);
+            if (outcome.recommendations > 0) {
+                outcomes.add(outcome);
+            }
+        }
+        outcomes.sort(Comparator.comparingDouble(ItemOutcome::getAverageRealizedProfit).reversed());
+        return outcomes;
+    }
+
+    // walk the item's records oldest first, only observations after its first recommendation count as realized
+    private ItemOutcome summarize(int itemId, Postings postings, long sinceMillis) {
+        int start = firstRecordSince(postings, sinceMillis);
+        int recommendations = 0;
+        int observations = 0;
+        long recommendedProfit = 0;
+        long realizedProfit = 0;
+
+        for (int i = start; i < postings.size; i++) {
+            int position = HEADER_BYTES + postings.records[i] * RECORD_BYTES;
+            int profit = buffer.getInt(position + 20);
+            if (buffer.getInt(position + 12) == TYPE_RECOMMENDED) {
+                recommendations++;
+                recommendedProfit += profit;
+            } else if (recommendations > 0) {
+                observations++;
+                realizedProfit += profit;
+            }
+        }
+
+        return new ItemOutcome(itemId, recommendations, observations, recommendedProfit, realizedProfit);
+    }
+
+    // records are appended in time order, so binary search the postings by timestamp
+    private int firstRecordSince(Postings postings, long sinceMillis) {
+        int low = 0;
+        int high = postings.size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            long timestamp = buffer.getLong(HEADER_BYTES + postings.records[mid] * RECORD_BYTES);
+            if (timestamp < sinceMillis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // recompute the 30-day outcome of the given items and publish a new read-only map
+    private void publishRecentOutcomes(Collection<Integer> itemIds) {
+        if (itemIds.isEmpty()) {
+            return;
+        }
+
+        long since = System.currentTimeMillis() - OBSERVE_WINDOW_MILLIS;
+        Map<Integer, ItemOutcome> outcomes = new HashMap<>(recentOutcomes);
+        for (int itemId : itemIds) {
+            Postings postings = index.get(itemId);
+            ItemOutcome outcome = postings != null ? summarize(itemId, postings, since) : null;
+            if (outcome != null && outcome.recommendations > 0) {
+                outcomes.put(itemId, outcome);
+            } else {
+                outcomes.remove(itemId);
+            }
+        }
+        recentOutcomes = Collections.unmodifiableMap(outcomes);
+    }
+
+    // false if the record couldn't be written
+    private boolean append(long timestamp, int itemId, int type, int price, int profit, long dailyVolume, float score) {
+        if (!open() || !ensureCapacity(recordCount + 1)) {
+            return false;
+        }
+
+        int record = (int) recordCount;
+        int position = HEADER_BYTES + record * RECORD_BYTES;
+        buffer.putLong(position, timestamp);
+        buffer.putInt(position + 8, itemId);
+        buffer.putInt(position + 12, type);
+        buffer.putInt(position + 16, price);
+        buffer.putInt(position + 20, profit);
+        buffer.putInt(position + 24, (int) Math.min(Integer.MAX_VALUE, dailyVolume));
+        buffer.putFloat(position + 28, score);
+
+        // the count is written last, so a crash mid-record leaves the record invisible
+        recordCount++;
+        buffer.putLong(8, recordCount);
+        indexRecord(record, itemId, type, timestamp);
+        return true;
+    }
+
+    private void indexRecord(int record, int itemId, int type, long timestamp) {
+        Postings postings = index.computeIfAbsent(itemId, id -> new Postings());
+        postings.add(record);
+        if (type == TYPE_RECOMMENDED) {
+            postings.lastRecommendedAt = timestamp;
+        } else {
+            postings.lastObservedAt = timestamp;
+        }
+    }
+
+    // map the log and rebuild the per-item index with one sequential pass, false if the file is unusable
+    private boolean open() {
+        if (closed) {
+            return false;
+        }
+        if (opened) {
+            return buffer != null;
+        }
+        opened = true;
+
+        try {
+            CACHE_DIR.mkdirs();
+            channel = FileChannel.open(LOG_FILE.toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long fileSize = channel.size();
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(fileSize, HEADER_BYTES + (long) GROWTH_RECORDS * RECORD_BYTES));
+
+            if (fileSize < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+                if (fileSize >= HEADER_BYTES) {
+                    log.warn("Outcome log has an unknown format, starting a new one");
+                }
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, FORMAT_VERSION);
+                buffer.putLong(8, 0);
+            }
+
+            // never trust a count that points past the end of the file
+            long capacity = (buffer.capacity() - HEADER_BYTES) / RECORD_BYTES;
+            recordCount = Math.min(buffer.getLong(8), capacity);
+            for (int record = 0; record < recordCount; record++) {
+                int position = HEADER_BYTES + record * RECORD_BYTES;
+                indexRecord(record, buffer.getInt(position + 8), buffer.getInt(position + 12), buffer.getLong(position));
+            }
+
+            publishRecentOutcomes(new ArrayList<>(index.keySet()));
+            log.debug("Opened outcome log with {} records for {} items", recordCount, index.size());
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Unable to open outcome log: {}", e.getMessage());
+            close();
+            // don't retry on every record
+            opened = true;
+            return false;
+        }
+    }
+
+    // remap with room for another batch of records once the current mapping is full
+    private boolean ensureCapacity(long records) {
+        long required = HEADER_BYTES + records * RECORD_BYTES;
+        if (required <= buffer.capacity()) {
+            return true;
+        }
+        if (required > Integer.MAX_VALUE) {
+            return false;
+        }
+
+        try {
+            long size = Math.min(Integer.MAX_VALUE, buffer.capacity() + (long) GROWTH_RECORDS * RECORD_BYTES);
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            return true;
+        } catch (IOException e) {
+            log.warn("Unable to grow outcome log: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    // log the best and worst performers of the last 30 days, then release the file
+    public synchronized void shutdown() {
+        if (buffer != null) {
+            List<ItemOutcome> outcomes = getOutcomes(System.currentTimeMillis() - OBSERVE_WINDOW_MILLIS);
+            if (!outcomes.isEmpty()) {
+                ItemOutcome best = outcomes.get(0);
+                ItemOutcome worst = outcomes.get(outcomes.size() - 1);
+                log.debug("Outcome log: {} records, {} items recommended in 30 days, best item {} ({} gp realized), worst item {} ({} gp realized)",
+                        recordCount, outcomes.size(), best.itemId, Math.round(best.getAverageRealizedProfit()),
+                        worst.itemId, Math.round(worst.getAverageRealizedProfit()));
+            }
+            buffer.force();
+        }
+        close();
+        closed = true;
+    }
+
+    private void close() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.debug("Unable to close outcome log: {}", e.getMessage());
+            }
+        }
+        channel = null;
+        buffer = null;
+        recordCount = 0;
+        index.clear();
+        recentOutcomes = Collections.emptyMap();
+        opened = false;
+    }
+}
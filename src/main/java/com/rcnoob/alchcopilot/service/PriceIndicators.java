@@ -0,0 +1,101 @@
+package com.rcnoob.alchcopilot.service;
+
+import com.rcnoob.alchcopilot.model.PriceSnapshot;
+import com.rcnoob.alchcopilot.model.PriceTrend;
+
+import java.util.Arrays;
+
+// streaming per-item price statistics, updated in O(1) per item from each new 5m window.
+// Holt smoothing gives the level and trend, the variance is of the residual around that trend.
+// everything lives in primitive arrays indexed by item id, nothing is allocated per update
+public class PriceIndicators {
+
+    // smoothing span of one hour of 5-minute windows
+    private static final double LEVEL_ALPHA = 2.0 / (VolumeHistory.CAPACITY + 1);
+    private static final double TREND_BETA = 2.0 / (VolumeHistory.CAPACITY + 1);
+    private static final long WINDOW_SECONDS = 300;
+    private static final int WINDOWS_PER_HOUR = 12;
+    // fewer windows than this aren't enough to call a direction
+    public static final int MIN_SAMPLES = 3;
+
+    private long lastUpdate = 0;
+    private long[] updatedAt = new long[0];
+    private int[] samples = new int[0];
+    private double[] level = new double[0];
+    private double[] trend = new double[0];
+    private double[] variance = new double[0];
+    private double[] volume = new double[0];
+
+    // fold one 5m window into every item it traded, older or repeated windows are ignored
+    public synchronized void update(PriceSnapshot snapshot) {
+        long timestamp = snapshot.getTimestamp();
+        if (timestamp <= lastUpdate) {
+            return;
+        }
+        lastUpdate = timestamp;
+
+        // ids are sorted, so the arrays grow at most once per window
+        if (snapshot.size() > 0) {
+            ensureCapacity(snapshot.getItemId(snapshot.size() - 1));
+        }
+        for (int i = 0; i < snapshot.size(); i++) {
+            int price = snapshot.getMidPrice(i);
+            if (price > 0) {
+                update(snapshot.getItemId(i), timestamp, price, snapshot.getHighPriceVolume(i) + snapshot.getLowPriceVolume(i));
+            }
+        }
+    }
+
+    private void update(int itemId, long timestamp, double price, long windowVolume) {
+        ensureCapacity(itemId);
+
+        if (samples[itemId] == 0) {
+            level[itemId] = price;
+            trend[itemId] = 0;
+            variance[itemId] = 0;
+            volume[itemId] = windowVolume;
+        } else {
+            // windows without trades leave a gap, decay as if every missed window had been seen
+            double steps = Math.max(1, (timestamp - updatedAt[itemId]) / (double) WINDOW_SECONDS);
+            double alpha = 1 - Math.pow(1 - LEVEL_ALPHA, steps);
+            double beta = 1 - Math.pow(1 - TREND_BETA, steps);
+
+            double predicted = level[itemId] + trend[itemId] * steps;
+            double residual = price - predicted;
+            double newLevel = predicted + alpha * residual;
+
+            trend[itemId] = beta * ((newLevel - level[itemId]) / steps) + (1 - beta) * trend[itemId];
+            variance[itemId] = (1 - alpha) * (variance[itemId] + alpha * residual * residual);
+            level[itemId] = newLevel;
+            volume[itemId] += alpha * (windowVolume - volume[itemId]);
+        }
+
+        updatedAt[itemId] = timestamp;
+        samples[itemId]++;
+    }
+
+    // the current indicators of an item, null until enough windows have been seen
+    public synchronized PriceTrend getTrend(int itemId) {
+        if (itemId < 0 || itemId >= samples.length || samples[itemId] < MIN_SAMPLES) {
+            return null;
+        }
+
+        return new PriceTrend(level[itemId], Math.sqrt(variance[itemId]), trend[itemId] * WINDOWS_PER_HOUR,
+                volume[itemId], samples[itemId]);
+    }
+
+    // item ids are dense, grow to the highest id seen in one step rather than per item
+    private void ensureCapacity(int itemId) {
+        if (itemId < samples.length) {
+            return;
+        }
+
+        int capacity = Math.max(itemId + 1, samples.length * 3 / 2);
+        updatedAt = Arrays.copyOf(updatedAt, capacity);
+        samples = Arrays.copyOf(samples, capacity);
+        level = Arrays.copyOf(level, capacity);
+        trend = Arrays.copyOf(trend, capacity);
+        variance = Arrays.copyOf(variance, capacity);
+        volume = Arrays.copyOf(volume, capacity);
+    }
+}
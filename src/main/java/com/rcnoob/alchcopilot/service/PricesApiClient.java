@@ -0,0 +1,165 @@
+package com.rcnoob.alchcopilot.service;
+
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Singleton
+public class PricesApiClient {
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long BASE_BACKOFF_MILLIS = 250;
+    private static final long MAX_BACKOFF_MILLIS = 4000;
+    // Retry-After longer than this trips the breaker instead of blocking the caller
+    private static final long MAX_RETRY_AFTER_MILLIS = 5000;
+
+    private final OkHttpClient httpClient;
+    private final RequestScheduler requestScheduler;
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker("prices.runescape.wiki", 3, Duration.ofSeconds(60));
+
+    @Inject
+    public PricesApiClient(OkHttpClient httpClient, RequestScheduler requestScheduler) {
+        this.requestScheduler = requestScheduler;
+        this.httpClient = httpClient.newBuilder()
+                .connectTimeout(5, TimeUnit.SECONDS)
+                .readTimeout(10, TimeUnit.SECONDS)
+                .writeTimeout(5, TimeUnit.SECONDS)
+                .build();
+    }
+
+    // thrown without touching the network while the circuit is open
+    public static class ApiUnavailableException extends IOException {
+        public ApiUnavailableException(String message) {
+            super(message);
+        }
+    }
+
+    // status, body and validator of a completed call
+    public static class ApiResponse {
+        public final int code;
+        public final String body;
+        public final String etag;
+
+        ApiResponse(int code, String body, String etag) {
+            this.code = code;
+            this.body = body;
+            this.etag = etag;
+        }
+
+        public boolean isNotModified() {
+            return code == 304;
+        }
+    }
+
+    // GET the url and return the body, retrying transient failures
+    public String get(String url) throws IOException {
+        return get(url, null, RequestScheduler.Priority.INTERACTIVE).body;
+    }
+
+    public String get(String url, RequestScheduler.Priority priority) throws IOException {
+        return get(url, null, priority).body;
+    }
+
+    // GET with an optional If-None-Match validator, 304 is returned as a response rather than an error
+    public ApiResponse get(String url, String etag, RequestScheduler.Priority priority) throws IOException {
+        // wait for our turn before claiming the breaker, a dropped request must not hold the half-open probe
+        requestScheduler.acquire(url, priority);
+        if (!circuitBreaker.allowRequest()) {
+            throw new ApiUnavailableException("Prices API unavailable, circuit open");
+        }
+
+        IOException lastError = null;
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            // retries are paced like any other request
+            if (attempt > 1) {
+                try {
+                    requestScheduler.acquire(url, priority);
+                } catch (RequestScheduler.RequestDroppedException e) {
+                    break;
+                }
+            }
+
+            Request.Builder builder = new Request.Builder()
+                    .url(url)
+                    .header("User-Agent", "AlchCopilot-RuneLite-Plugin");
+            if (etag != null && !etag.isEmpty()) {
+                builder.header("If-None-Match", etag);
+            }
+
+            long retryAfterMillis = -1;
+            int code = -1;
+            try (Response response = httpClient.newCall(builder.build()).execute()) {
+                code = response.code();
+                if (response.isSuccessful() || code == 304) {
+                    circuitBreaker.recordSuccess();
+                    String body = code == 304 ? null : response.body().string();
+                    return new ApiResponse(code, body, response.header("ETag"));
+                }
+                retryAfterMillis = parseRetryAfter(response.header("Retry-After"));
+            } catch (IOException e) {
+                lastError = e;
+                code = -1;
+            }
+
+            if (code != -1) {
+                lastError = new IOException("HTTP " + code);
+                if (code != 429 && code < 500) {
+                    // client errors won't get better by retrying and say nothing about API health
+                    circuitBreaker.recordSuccess();
+                    throw lastError;
+                }
+            }
+
+            log.debug("Prices API attempt {}/{} for {} failed: {}", attempt, MAX_ATTEMPTS, url, lastError.getMessage());
+
+            if (retryAfterMillis > MAX_RETRY_AFTER_MILLIS) {
+                circuitBreaker.openFor(Duration.ofMillis(retryAfterMillis));
+                throw new ApiUnavailableException("Prices API asked us to back off for " + retryAfterMillis + "ms");
+            }
+
+            if (attempt < MAX_ATTEMPTS) {
+                sleep(retryAfterMillis >= 0 ? retryAfterMillis : backoff(attempt));
+            }
+        }
+
+        circuitBreaker.recordFailure();
+        throw lastError;
+    }
+
+    // exponential backoff, jittered over the upper half of the window
+    private static long backoff(int attempt) {
+        long ceiling = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << (attempt - 1));
+        return ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1);
+    }
+
+    // Retry-After in delta-seconds, -1 if absent or not a number
+    private static long parseRetryAfter(String header) {
+        if (header == null) {
+            return -1;
+        }
+
+        try {
+            return Math.max(0, Long.parseLong(header.trim())) * 1000L;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static void sleep(long millis) throws IOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while backing off", e);
+        }
+    }
+}
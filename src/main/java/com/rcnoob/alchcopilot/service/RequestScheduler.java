@@ -0,0 +1,144 @@
+package com.rcnoob.alchcopilot.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// paces outgoing requests with a token bucket per host, interactive requests always go first
+@Slf4j
+@Singleton
+public class RequestScheduler {
+
+    public enum Priority {
+        // the user is waiting on the result
+        INTERACTIVE,
+        // refreshes that can be late or skipped
+        BACKGROUND
+    }
+
+    // short bursts are fine, sustained load is held to the refill rate
+    private static final int BUCKET_CAPACITY = 4;
+    private static final long REFILL_INTERVAL_MILLIS = 500;
+    // tokens background requests leave untouched so an interactive request never has to wait for a refill
+    private static final int INTERACTIVE_RESERVE = 1;
+    // background requests beyond this many waiting per host are dropped
+    private static final int MAX_WAITING_BACKGROUND = 2;
+    private static final long MAX_BACKGROUND_WAIT_MILLIS = 15000;
+
+    private final Map<String, HostLane> lanes = new ConcurrentHashMap<>();
+
+    // thrown when background work is dropped rather than queued behind other requests
+    public static class RequestDroppedException extends IOException {
+        public RequestDroppedException(String message) {
+            super(message);
+        }
+    }
+
+    // block until a request to the url's host may go out
+    public void acquire(String url, Priority priority) throws IOException {
+        lanes.computeIfAbsent(hostOf(url), HostLane::new).acquire(priority);
+    }
+
+    private static String hostOf(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host != null ? host : url;
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+    }
+
+    private static class HostLane {
+        private final String host;
+        private double tokens = BUCKET_CAPACITY;
+        private long refilledAt = System.currentTimeMillis();
+        private int waitingInteractive = 0;
+        private int waitingBackground = 0;
+
+        HostLane(String host) {
+            this.host = host;
+        }
+
+        synchronized void acquire(Priority priority) throws IOException {
+            if (priority == Priority.INTERACTIVE) {
+                acquireInteractive();
+            } else {
+                acquireBackground();
+            }
+        }
+
+        private void acquireInteractive() throws IOException {
+            waitingInteractive++;
+            try {
+                while (!tryTake(0)) {
+                    waitForRefill(-1);
+                }
+            } finally {
+                waitingInteractive--;
+                notifyAll();
+            }
+        }
+
+        private void acquireBackground() throws IOException {
+            if (waitingInteractive == 0 && tryTake(INTERACTIVE_RESERVE)) {
+                return;
+            }
+
+            // under pressure, shed background work instead of letting it pile up
+            if (waitingBackground >= MAX_WAITING_BACKGROUND) {
+                log.debug("Dropping background request to {}, {} already waiting", host, waitingBackground);
+                throw new RequestDroppedException("Background request to " + host + " dropped under load");
+            }
+
+            long deadline = System.currentTimeMillis() + MAX_BACKGROUND_WAIT_MILLIS;
+            waitingBackground++;
+            try {
+                while (waitingInteractive > 0 || !tryTake(INTERACTIVE_RESERVE)) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        log.debug("Dropping background request to {} after waiting {}ms", host, MAX_BACKGROUND_WAIT_MILLIS);
+                        throw new RequestDroppedException("Background request to " + host + " timed out waiting for capacity");
+                    }
+                    waitForRefill(remaining);
+                }
+            } finally {
+                waitingBackground--;
+            }
+        }
+
+        // take a token if more than the reserve is available
+        private boolean tryTake(int reserve) {
+            refill();
+            if (tokens >= 1 + reserve) {
+                tokens -= 1;
+                return true;
+            }
+            return false;
+        }
+
+        private void refill() {
+            long now = System.currentTimeMillis();
+            tokens = Math.min(BUCKET_CAPACITY, tokens + (now - refilledAt) / (double) REFILL_INTERVAL_MILLIS);
+            refilledAt = now;
+        }
+
+        // sleep until roughly the next token, woken early when an interactive request finishes
+        private void waitForRefill(long maxMillis) throws IOException {
+            long millis = (long) Math.ceil((1 - (tokens % 1)) * REFILL_INTERVAL_MILLIS);
+            if (maxMillis >= 0) {
+                millis = Math.min(millis, maxMillis);
+            }
+
+            try {
+                wait(Math.max(1, millis));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting to send request", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.rcnoob.alchcopilot.service;
+
+import com.rcnoob.alchcopilot.model.Weighable;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+@Singleton
+public class SingleFlightFetcher {
+
+    // loads block on the network, on request pacing and on retry backoff, so they get their own few threads
+    // rather than tying up the common pool the search scan runs on
+    private static final int LOAD_THREADS = 4;
+
+    // one in-flight load per url, every concurrent caller shares it
+    private final Map<String, Load> inFlight = new ConcurrentHashMap<>();
+    // last successful result per url, failures are never stored
+    private final BoundedCache<String, CachedResult> cache;
+    private final ExecutorService loadExecutor = createLoadExecutor();
+
+    private static class CachedResult {
+        final Object value;
+        final long expiresAt;
+
+        CachedResult(Object value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static class Load {
+        final CompletableFuture<Object> future = new CompletableFuture<>();
+        final RequestScheduler.Priority priority;
+
+        Load(RequestScheduler.Priority priority) {
+            this.priority = priority;
+        }
+    }
+
+    // a loader that sends its requests at the priority of whoever started the load
+    public interface PrioritizedLoader<T> {
+        T load(RequestScheduler.Priority priority) throws Exception;
+    }
+
+    @Inject
+    public SingleFlightFetcher(CacheBudget cacheBudget) {
+        this.cache = cacheBudget.register("responses", 0.75, SingleFlightFetcher::weigh);
+    }
+
+    // idle threads exit, so the pool costs nothing between searches
+    private static ExecutorService createLoadExecutor() {
+        AtomicInteger threads = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(LOAD_THREADS, LOAD_THREADS, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "alch-copilot-fetch-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    // unknown result types are assumed to be small
+    private static long weigh(CachedResult cached) {
+        return cached.value instanceof Weighable ? ((Weighable) cached.value).estimateBytes() : 1024;
+    }
+
+    // return a fresh cached result or join/start the single load for this url
+    public <T> CompletableFuture<T> fetch(String url, Duration ttl, Callable<T> loader) {
+        return fetch(url, ttl, RequestScheduler.Priority.INTERACTIVE, priority -> loader.call());
+    }
+
+    // as above, but a caller that can't wait doesn't join a background load. that may sit behind the pacing or
+    // be dropped, so it is overtaken by an interactive load whose result also completes the background one
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> fetch(String url, Duration ttl, RequestScheduler.Priority priority,
+                                          PrioritizedLoader<T> loader) {
+        CachedResult cached = cache.get(url);
+        if (cached != null && System.currentTimeMillis() < cached.expiresAt) {
+            return CompletableFuture.completedFuture((T) cached.value);
+        }
+
+        Load created = new Load(priority);
+        Load existing = inFlight.putIfAbsent(url, created);
+        if (existing != null) {
+            if (priority == RequestScheduler.Priority.BACKGROUND || existing.priority == RequestScheduler.Priority.INTERACTIVE) {
+                log.debug("Joining in-flight request for {}", url);
+                return (CompletableFuture<T>) existing.future;
+            }
+            if (!inFlight.replace(url, existing, created)) {
+                // the background load finished meanwhile, start over against its result
+                return fetch(url, ttl, priority, loader);
+            }
+
+            log.debug("Overtaking background request for {}", url);
+            created.future.thenAccept(existing.future::complete);
+        }
+
+        // a load may have finished between the cache check and claiming the slot
+        cached = cache.get(url);
+        if (cached != null && System.currentTimeMillis() < cached.expiresAt) {
+            inFlight.remove(url, created);
+            created.future.complete(cached.value);
+            return (CompletableFuture<T>) created.future;
+        }
+
+        loadExecutor.execute(() -> {
+            try {
+                Object value = loader.load(priority);
+                long now = System.currentTimeMillis();
+                cache.put(url, new CachedResult(value, now + ttl.toMillis()));
+                inFlight.remove(url, created);
+                created.future.complete(value);
+            } catch (Throwable t) {
+                inFlight.remove(url, created);
+                created.future.completeExceptionally(t instanceof CompletionException ? t : new CompletionException(t));
+            }
+        });
+
+        return (CompletableFuture<T>) created.future;
+    }
+
+    // seed the cache with a value loaded elsewhere (e.g. from disk), expired values still serve getCached
+    public void prime(String url, Object value, long expiresAt) {
+        cache.putIfAbsent(url, new CachedResult(value, expiresAt));
+    }
+
+    // last successful result even if expired, null if nothing was ever loaded
+    @SuppressWarnings("unchecked")
+    public <T> T getCached(String url) {
+        CachedResult cached = cache.get(url);
+        return cached != null ? (T) cached.value : null;
+    }
+
+    public boolean isFresh(String url) {
+        CachedResult cached = cache.get(url);
+        return cached != null && System.currentTimeMillis() < cached.expiresAt;
+    }
+
+    // expire the cached result so the next fetch reloads it
+    public void invalidate(String url) {
+        cache.computeIfPresent(url, (key, cached) -> new CachedResult(cached.value, 0));
+    }
+
+    // cancel in-flight loads and drop cached results
+    public void shutdown() {
+        for (Load load : inFlight.values()) {
+            load.future.cancel(true);
+        }
+        inFlight.clear();
+        cache.clear();
+    }
+}
@@ -1,33 +1,54 @@
 package com.rcnoob.alchcopilot.service;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.rcnoob.alchcopilot.model.MarketSnapshot;
+import com.rcnoob.alchcopilot.model.PriceSnapshot;
 import lombok.extern.slf4j.Slf4j;
-import okhttp3.*;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Singleton
 public class VolumeChecker {
     // OSRS wiki API for 5-minute trading data
     private static final String OSRS_EXCHANGE_API = "https://prices.runescape.wiki/api/v1/osrs/5m";
+    // OSRS wiki API for 1-hour trading data, used for items with no trades in the last 5 minutes
+    private static final String OSRS_HOURLY_API = "https://prices.runescape.wiki/api/v1/osrs/1h";
+    // the endpoint only changes every 5 minutes, reuse a response for a minute
+    private static final Duration SNAPSHOT_TTL = Duration.ofMinutes(1);
+    private static final Duration HOURLY_SNAPSHOT_TTL = Duration.ofMinutes(10);
 
-    private final OkHttpClient httpClient;
+    // a restored snapshot is still current until the window after it should have been published
+    private static final Duration FIVE_MINUTE_FRESHNESS = Duration.ofMinutes(10);
+    private static final Duration ONE_HOUR_FRESHNESS = Duration.ofHours(2);
+
+    private final PricesApiClient pricesApiClient;
     private final Gson gson;
+    private final SingleFlightFetcher singleFlightFetcher;
+    private final MarketSnapshotStore snapshotStore;
+    private final MarketState marketState;
+    private final OutcomeLog outcomeLog;
+    private final VolumeHistory volumeHistory = new VolumeHistory();
+    private final PriceIndicators priceIndicators = new PriceIndicators();
+    // completes once the persisted snapshots have been replayed, null until first needed
+    private CompletableFuture<Void> restored;
 
     @Inject
-    public VolumeChecker(OkHttpClient httpClient, Gson gson) {
-        this.httpClient = httpClient.newBuilder()
-                .connectTimeout(5, TimeUnit.SECONDS)
-                .readTimeout(10, TimeUnit.SECONDS)
-                .writeTimeout(5, TimeUnit.SECONDS)
-                .build();
+    public VolumeChecker(PricesApiClient pricesApiClient, Gson gson, SingleFlightFetcher singleFlightFetcher,
+                         MarketSnapshotStore snapshotStore, MarketState marketState, OutcomeLog outcomeLog) {
+        this.pricesApiClient = pricesApiClient;
         this.gson = gson;
+        this.singleFlightFetcher = singleFlightFetcher;
+        this.snapshotStore = snapshotStore;
+        this.marketState = marketState;
+        this.outcomeLog = outcomeLog;
     }
 
     // wrapper for volume data with calculations
@@ -54,45 +75,176 @@ public class VolumeChecker {
         }
     }
 
-    // fetch trading volume data for specific item
-    public CompletableFuture<VolumeData> checkVolume(int itemId) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                Request request = new Request.Builder()
-                        .url(OSRS_EXCHANGE_API)
-                        .header("User-Agent", "AlchCopilot-RuneLite-Plugin")
-                        .build();
-
-                // make API call and parse response
-                try (Response response = httpClient.newCall(request).execute()) {
-                    if (!response.isSuccessful()) {
-                        log.warn("Failed to fetch volume data: {}", response.code());
-                        return new VolumeData(itemId, 0, 0);
-                    }
-
-                    String responseBody = response.body().string();
-                    JsonObject jsonResponse = gson.fromJson(responseBody, JsonObject.class);
-                    JsonObject data = jsonResponse.getAsJsonObject("data");
-
-                    // check if item exists in response
-                    if (!data.has(String.valueOf(itemId))) {
-                        log.debug("No volume data available for item {}", itemId);
-                        return new VolumeData(itemId, 0, 0);
-                    }
-
-                    // extract buy and sell volumes
-                    JsonObject itemData = data.getAsJsonObject(String.valueOf(itemId));
-                    long buyVolume = itemData.has("highPriceVolume") ?
-                            itemData.get("highPriceVolume").getAsLong() : 0;
-                    long sellVolume = itemData.has("lowPriceVolume") ?
-                            itemData.get("lowPriceVolume").getAsLong() : 0;
-
-                    return new VolumeData(itemId, buyVolume, sellVolume);
-                }
-            } catch (IOException e) {
-                log.error("Error fetching volume data for item {}: {}", itemId, e.getMessage());
-                return new VolumeData(itemId, 0, 0);
+    // make sure the market snapshot holds current volumes, all items share one cached 5m response.
+    // completes with the latest snapshot, which keeps the last good volumes while the API is failing
+    public CompletableFuture<MarketSnapshot> refresh() {
+        return refresh(RequestScheduler.Priority.INTERACTIVE);
+    }
+
+    // fetch the snapshots ahead of the first search, giving way to anything the user is waiting on
+    public CompletableFuture<MarketSnapshot> prewarm() {
+        return refresh(RequestScheduler.Priority.BACKGROUND);
+    }
+
+    private CompletableFuture<MarketSnapshot> refresh(RequestScheduler.Priority priority) {
+        // a restored snapshot that is still fresh saves the download, so check only once it has been replayed
+        return restoreSnapshots().thenCompose(restored -> {
+            // the hourly data only backs items missing from the 5m data, it can arrive later
+            if (!singleFlightFetcher.isFresh(OSRS_HOURLY_API)) {
+                singleFlightFetcher.fetch(OSRS_HOURLY_API, HOURLY_SNAPSHOT_TTL, this::fetchHourlySnapshot);
             }
+
+            // an interactive refresh overtakes a background one already waiting on the pacing
+            return singleFlightFetcher.fetch(OSRS_EXCHANGE_API, SNAPSHOT_TTL, priority, this::fetchSnapshot)
+                    .handle((snapshot, throwable) -> {
+                        if (throwable != null) {
+                            log.debug("Volume refresh failed, using last known volumes: {}", throwable.getMessage());
+                        }
+                        return marketState.get();
+                    });
         });
     }
-}
\ No newline at end of file
+
+    // identifies the volume data a search would see right now. the 5m data is keyed on its own window rather
+    // than on the response cache, so results stay reusable until a newer window should have been published.
+    // -1 when there are no volumes or they are older than that
+    public long getSnapshotVersion() {
+        MarketSnapshot market = marketState.get();
+        if (market.getFiveMinute() == null
+                || System.currentTimeMillis() >= market.getVolumeTimestamp() * 1000L + FIVE_MINUTE_FRESHNESS.toMillis()) {
+            return -1;
+        }
+        return market.getVolumeVersion();
+    }
+
+    // smoothed price, trend and volatility per item, fed by every new 5m window. never waits for the restore,
+    // items simply have no trend until the persisted windows have been replayed
+    public PriceIndicators getPriceIndicators() {
+        restoreSnapshots();
+        return priceIndicators;
+    }
+
+    // download and parse the whole 5m response once
+    private PriceSnapshot fetchSnapshot(RequestScheduler.Priority priority) throws IOException {
+        try {
+            String responseBody = pricesApiClient.get(OSRS_EXCHANGE_API, priority);
+            PriceSnapshot snapshot = parseSnapshot(gson.fromJson(responseBody, JsonObject.class));
+            MarketSnapshot market = marketState.publishFiveMinute(snapshot);
+            if (volumeHistory.add(snapshot)) {
+                priceIndicators.update(snapshot);
+                persistSnapshots(snapshot, market.getOneHour());
+                // follow up on past recommendations at every new window
+                outcomeLog.recordObservations(market);
+            }
+            return snapshot;
+        } catch (IOException e) {
+            log.warn("Failed to fetch volume data: {}", e.getMessage());
+            throw e;
+        }
+    }
+
+    private PriceSnapshot fetchHourlySnapshot() throws IOException {
+        // only feeds the fallback for items missing from the 5m data, so it can wait or be skipped
+        String responseBody = pricesApiClient.get(OSRS_HOURLY_API, RequestScheduler.Priority.BACKGROUND);
+        PriceSnapshot snapshot = parseSnapshot(gson.fromJson(responseBody, JsonObject.class));
+        marketState.publishOneHour(snapshot);
+        persistSnapshots(volumeHistory.getLatest(), snapshot);
+        return snapshot;
+    }
+
+    private void persistSnapshots(PriceSnapshot fiveMinute, PriceSnapshot oneHour) {
+        snapshotStore.saveAsync(new MarketSnapshotStore.Stored(fiveMinute, oneHour, volumeHistory.getSnapshots()));
+    }
+
+    // load persisted snapshots once so the first search after a restart can skip the network. the file is read
+    // on a pool thread, the callers are all on the client thread
+    private synchronized CompletableFuture<Void> restoreSnapshots() {
+        if (restored == null) {
+            restored = CompletableFuture.runAsync(this::replayStoredSnapshots)
+                    .exceptionally(throwable -> {
+                        log.warn("Unable to restore market snapshots: {}", throwable.getMessage());
+                        return null;
+                    });
+        }
+        return restored;
+    }
+
+    private void replayStoredSnapshots() {
+        MarketSnapshotStore.Stored stored = snapshotStore.load();
+        if (stored == null) {
+            return;
+        }
+
+        for (PriceSnapshot snapshot : stored.history) {
+            if (volumeHistory.add(snapshot)) {
+                priceIndicators.update(snapshot);
+            }
+        }
+        primeSnapshot(OSRS_EXCHANGE_API, stored.fiveMinute, FIVE_MINUTE_FRESHNESS);
+        primeSnapshot(OSRS_HOURLY_API, stored.oneHour, ONE_HOUR_FRESHNESS);
+        // even stale volumes beat none while the API is unreachable
+        if (stored.fiveMinute != null) {
+            marketState.publishFiveMinute(stored.fiveMinute);
+        }
+        if (stored.oneHour != null) {
+            marketState.publishOneHour(stored.oneHour);
+        }
+    }
+
+    // stale snapshots are primed as expired so they only serve as an outage fallback
+    private void primeSnapshot(String url, PriceSnapshot snapshot, Duration freshness) {
+        if (snapshot == null) {
+            return;
+        }
+
+        singleFlightFetcher.prime(url, snapshot, snapshot.getTimestamp() * 1000L + freshness.toMillis());
+    }
+
+    // cached snapshots are dropped on shutdown, restore them again on next use
+    public synchronized void shutdown() {
+        restored = null;
+    }
+
+    // convert {"data": {"<id>": {...}}, "timestamp": n} into sorted columns
+    private static PriceSnapshot parseSnapshot(JsonObject jsonResponse) {
+        JsonObject data = jsonResponse.getAsJsonObject("data");
+        long timestamp = jsonResponse.has("timestamp") ? jsonResponse.get("timestamp").getAsLong() : 0;
+
+        int[] itemIds = new int[data.size()];
+        int count = 0;
+        for (String key : data.keySet()) {
+            try {
+                itemIds[count++] = Integer.parseInt(key);
+            } catch (NumberFormatException e) {
+                log.debug("Skipping invalid item ID: {}", key);
+            }
+        }
+        itemIds = Arrays.copyOf(itemIds, count);
+        Arrays.sort(itemIds);
+
+        int[] avgHighPrice = new int[count];
+        int[] avgLowPrice = new int[count];
+        long[] highPriceVolume = new long[count];
+        long[] lowPriceVolume = new long[count];
+
+        for (int i = 0; i < count; i++) {
+            JsonObject itemData = data.getAsJsonObject(String.valueOf(itemIds[i]));
+            avgHighPrice[i] = getInt(itemData, "avgHighPrice");
+            avgLowPrice[i] = getInt(itemData, "avgLowPrice");
+            highPriceVolume[i] = getLong(itemData, "highPriceVolume");
+            lowPriceVolume[i] = getLong(itemData, "lowPriceVolume");
+        }
+
+        return new PriceSnapshot(timestamp, itemIds, avgHighPrice, avgLowPrice, highPriceVolume, lowPriceVolume);
+    }
+
+    private static int getInt(JsonObject object, String key) {
+        JsonElement element = object.get(key);
+        return element != null && !element.isJsonNull() ? element.getAsInt() : 0;
+    }
+
+    private static long getLong(JsonObject object, String key) {
+        JsonElement element = object.get(key);
+        return element != null && !element.isJsonNull() ? element.getAsLong() : 0;
+    }
+}
@@ -0,0 +1,45 @@
+package com.rcnoob.alchcopilot.service;
+
+import com.rcnoob.alchcopilot.model.PriceSnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// rolling window of the most recent distinct 5m snapshots, oldest first
+public class VolumeHistory {
+
+    // twelve 5-minute windows cover the last hour
+    public static final int CAPACITY = 12;
+
+    private final PriceSnapshot[] ring = new PriceSnapshot[CAPACITY];
+    private int head = 0;
+    private int size = 0;
+
+    // append a snapshot, ignoring ones that are not newer than the latest entry
+    public synchronized boolean add(PriceSnapshot snapshot) {
+        PriceSnapshot latest = getLatest();
+        if (latest != null && snapshot.getTimestamp() <= latest.getTimestamp()) {
+            return false;
+        }
+
+        ring[(head + size) % CAPACITY] = snapshot;
+        if (size < CAPACITY) {
+            size++;
+        } else {
+            head = (head + 1) % CAPACITY;
+        }
+        return true;
+    }
+
+    public synchronized PriceSnapshot getLatest() {
+        return size == 0 ? null : ring[(head + size - 1) % CAPACITY];
+    }
+
+    public synchronized List<PriceSnapshot> getSnapshots() {
+        List<PriceSnapshot> snapshots = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            snapshots.add(ring[(head + i) % CAPACITY]);
+        }
+        return snapshots;
+    }
+}
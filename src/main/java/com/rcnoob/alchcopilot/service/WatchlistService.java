@@ -0,0 +1,191 @@
+package com.rcnoob.alchcopilot.service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.rcnoob.alchcopilot.engine.ItemTable;
+import com.rcnoob.alchcopilot.model.Watch;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.ItemComposition;
+import net.runelite.client.Notifier;
+import net.runelite.client.config.ConfigManager;
+import net.runelite.client.game.ItemManager;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+// profit alerts for watched items, each price change only visits the thresholds it crossed
+@Slf4j
+@Singleton
+public class WatchlistService {
+
+    public static final String CONFIG_KEY = "watchlist";
+    private static final String CONFIG_GROUP = "AlchCopilotPlugin";
+
+    private final ConfigManager configManager;
+    private final ItemManager itemManager;
+    private final Notifier notifier;
+    private final Gson gson;
+
+    // watches per item, sorted by target profit
+    private final Map<Integer, NavigableMap<Integer, Watch>> thresholds = new HashMap<>();
+    // last profit seen per watched item, the lower bound of the next crossing
+    private final Map<Integer, Integer> lastProfit = new HashMap<>();
+
+    @Inject
+    public WatchlistService(ConfigManager configManager, ItemManager itemManager, Notifier notifier, Gson gson) {
+        this.configManager = configManager;
+        this.itemManager = itemManager;
+        this.notifier = notifier;
+        this.gson = gson;
+    }
+
+    // read saved watches from the config
+    public synchronized void load() {
+        thresholds.clear();
+        lastProfit.clear();
+
+        String json = configManager.getConfiguration(CONFIG_GROUP, CONFIG_KEY);
+        if (json == null || json.isEmpty()) {
+            return;
+        }
+
+        try {
+            Watch[] saved = gson.fromJson(json, Watch[].class);
+            for (Watch watch : saved) {
+                index(watch);
+            }
+            log.debug("Loaded {} watches", saved.length);
+        } catch (JsonParseException e) {
+            log.warn("Ignoring unreadable watchlist: {}", e.getMessage());
+        }
+    }
+
+    // a target the item already makes alerts straight away, otherwise on the next price check
+    public synchronized void add(int itemId, String name, int targetProfit) {
+        Watch watch = new Watch(itemId, name, targetProfit);
+        index(watch);
+        Integer profit = lastProfit.get(itemId);
+        if (profit != null) {
+            update(Collections.singletonList(watch), profit);
+        }
+        save();
+    }
+
+    public synchronized void remove(Watch watch) {
+        NavigableMap<Integer, Watch> itemThresholds = thresholds.get(watch.getItemId());
+        if (itemThresholds == null || itemThresholds.remove(watch.getTargetProfit()) == null) {
+            return;
+        }
+        if (itemThresholds.isEmpty()) {
+            thresholds.remove(watch.getItemId());
+            lastProfit.remove(watch.getItemId());
+        }
+        save();
+    }
+
+    public synchronized List<Watch> getWatches() {
+        List<Watch> watches = new ArrayList<>();
+        for (NavigableMap<Integer, Watch> itemThresholds : thresholds.values()) {
+            watches.addAll(itemThresholds.values());
+        }
+        watches.sort(Comparator.comparing(Watch::getName).thenComparingInt(Watch::getTargetProfit));
+        return watches;
+    }
+
+    public synchronized boolean isEmpty() {
+        return thresholds.isEmpty();
+    }
+
+    // last profit per alch seen for the item, null before the first price check
+    public synchronized Integer getLastProfit(int itemId) {
+        return lastProfit.get(itemId);
+    }
+
+    // evaluate watched items against a freshly captured table
+    public synchronized void evaluate(ItemTable table) {
+        int natureRunePrice = table.getNatureRunePrice();
+        for (int itemId : thresholds.keySet()) {
+            int row = table.indexOf(itemId);
+            // an unpriced row would read as the whole alch value in profit
+            if (row >= 0 && table.getPrice(row) > 0) {
+                onProfit(itemId, table.getHighAlch(row) - table.getPrice(row) - natureRunePrice);
+            }
+        }
+    }
+
+    // look up current prices for just the watched items, must run on the client thread.
+    // priced from the same source as a captured table, a profit flipping between sources would fire a watch again
+    public synchronized void checkLivePrices() {
+        int natureRunePrice = itemManager.getItemPrice(net.runelite.api.gameval.ItemID.NATURERUNE);
+        for (int itemId : thresholds.keySet()) {
+            ItemComposition itemComposition = itemManager.getItemComposition(itemId);
+            int price = itemManager.getItemPriceWithSource(itemId, true);
+            if (itemComposition != null && price > 0) {
+                onProfit(itemId, itemComposition.getHaPrice() - price - natureRunePrice);
+            }
+        }
+    }
+
+    public synchronized void clearPrices() {
+        lastProfit.clear();
+    }
+
+    // visit the thresholds between the previous and the new profit. the first reading of an item checks all of
+    // them, so a target reached while logged out still alerts unless it had already alerted before
+    private void onProfit(int itemId, int profit) {
+        NavigableMap<Integer, Watch> itemThresholds = thresholds.get(itemId);
+        Integer previous = lastProfit.put(itemId, profit);
+
+        Collection<Watch> crossed;
+        if (previous == null) {
+            crossed = itemThresholds.values();
+        } else if (profit > previous) {
+            crossed = itemThresholds.subMap(previous, false, profit, true).values();
+        } else if (profit < previous) {
+            crossed = itemThresholds.subMap(profit, false, previous, true).values();
+        } else {
+            return;
+        }
+
+        if (update(crossed, profit)) {
+            save();
+        }
+    }
+
+    // alert on watches the profit has risen to and re-arm those it fell below, true if any changed
+    private boolean update(Collection<Watch> watches, int profit) {
+        boolean changed = false;
+        for (Watch watch : watches) {
+            boolean met = profit >= watch.getTargetProfit();
+            if (met == watch.isMet()) {
+                continue;
+            }
+
+            watch.setMet(met);
+            changed = true;
+            if (met) {
+                log.info("Watch triggered for {}: {} gp/alch (target {})", watch.getName(), profit, watch.getTargetProfit());
+                notifier.notify(String.format("Alch Copilot: %s now makes %,d gp per alch (target %,d)",
+                        watch.getName(), profit, watch.getTargetProfit()));
+            }
+        }
+        return changed;
+    }
+
+    private void index(Watch watch) {
+        thresholds.computeIfAbsent(watch.getItemId(), id -> new TreeMap<>()).put(watch.getTargetProfit(), watch);
+    }
+
+    private void save() {
+        configManager.setConfiguration(CONFIG_GROUP, CONFIG_KEY, gson.toJson(getWatches().toArray(new Watch[0])));
+    }
+}
@@ -0,0 +1,71 @@
+package com.rcnoob.alchcopilot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+// runs a task on many threads released at the same instant, with random pauses to vary the interleavings.
+// the seed is reported on failure and can be replayed with -Dstress.seed=<seed>
+public final class ConcurrentRunner {
+
+    private static final long TIMEOUT_SECONDS = 30;
+
+    public interface Task {
+        void run(int thread, Random random) throws Exception;
+    }
+
+    private ConcurrentRunner() {
+    }
+
+    public static void run(int threads, Task task) throws InterruptedException {
+        long seed = Long.getLong("stress.seed", System.nanoTime());
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> workers = new ArrayList<>(threads);
+
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            Random random = new Random(seed + thread);
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    task.run(thread, random);
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }, "stress-" + thread);
+            workers.add(worker);
+            worker.start();
+        }
+
+        start.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        for (Thread worker : workers) {
+            worker.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            if (worker.isAlive()) {
+                throw new AssertionError(worker.getName() + " still running after " + TIMEOUT_SECONDS + "s, seed " + seed);
+            }
+        }
+
+        if (failure.get() != null) {
+            throw new AssertionError("Failed with seed " + seed + ": " + failure.get(), failure.get());
+        }
+    }
+
+    // nothing, a yield or a short park, so threads overlap differently on every run
+    public static void pause(Random random) {
+        switch (random.nextInt(3)) {
+            case 0:
+                break;
+            case 1:
+                Thread.yield();
+                break;
+            default:
+                LockSupport.parkNanos(random.nextInt(50_000));
+        }
+    }
+}
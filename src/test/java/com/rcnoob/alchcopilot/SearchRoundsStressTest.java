@@ -0,0 +1,143 @@
+package com.rcnoob.alchcopilot;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class SearchRoundsStressTest {
+
+    private static final int ROUNDS = 500;
+    private static final int THREADS = 8;
+
+    @Test
+    public void everyRoundFinishesExactlyOnce() throws Exception {
+        SearchRounds rounds = new SearchRounds();
+        Random random = new Random(1);
+
+        for (int i = 0; i < ROUNDS; i++) {
+            int profiles = 1 + random.nextInt(THREADS);
+            SearchRounds.Round round = rounds.begin(profiles);
+            assertNotNull(round);
+            assertNull("a second round started while one was running", rounds.begin(1));
+
+            // each profile search completes from its own callback thread
+            AtomicInteger completions = new AtomicInteger();
+            ConcurrentRunner.run(profiles, (thread, threadRandom) -> {
+                ConcurrentRunner.pause(threadRandom);
+                if (rounds.finish(round)) {
+                    completions.incrementAndGet();
+                }
+            });
+
+            assertEquals(1, completions.get());
+            assertFalse("round stuck in progress", rounds.isRunning());
+        }
+    }
+
+    @Test
+    public void abandonedRoundsNeverFinishTheirReplacement() throws Exception {
+        SearchRounds rounds = new SearchRounds();
+        Random random = new Random(2);
+
+        for (int i = 0; i < ROUNDS; i++) {
+            // Find pressed again while the previous round's callbacks are still outstanding
+            int abandonedProfiles = 1 + random.nextInt(4);
+            SearchRounds.Round abandoned = rounds.begin(abandonedProfiles);
+            assertNotNull(abandoned);
+            rounds.abandon();
+
+            int profiles = 1 + random.nextInt(4);
+            SearchRounds.Round round = rounds.begin(profiles);
+            assertNotNull(round);
+
+            List<SearchRounds.Round> callbacks = new ArrayList<>();
+            for (int p = 0; p < abandonedProfiles; p++) {
+                callbacks.add(abandoned);
+            }
+            for (int p = 0; p < profiles; p++) {
+                callbacks.add(round);
+            }
+            Collections.shuffle(callbacks, random);
+            ConcurrentLinkedQueue<SearchRounds.Round> queue = new ConcurrentLinkedQueue<>(callbacks);
+
+            AtomicInteger abandonedCompletions = new AtomicInteger();
+            AtomicInteger completions = new AtomicInteger();
+            ConcurrentRunner.run(THREADS, (thread, threadRandom) -> {
+                SearchRounds.Round next;
+                while ((next = queue.poll()) != null) {
+                    ConcurrentRunner.pause(threadRandom);
+                    if (rounds.finish(next)) {
+                        (next == round ? completions : abandonedCompletions).incrementAndGet();
+                    }
+                }
+            });
+
+            assertEquals("an abandoned round completed", 0, abandonedCompletions.get());
+            assertEquals(1, completions.get());
+            assertFalse("round stuck in progress", rounds.isRunning());
+        }
+    }
+
+    @Test
+    public void abandonedRoundsPublishNothingAfterAbandon() throws Exception {
+        SearchRounds rounds = new SearchRounds();
+
+        for (int i = 0; i < ROUNDS; i++) {
+            SearchRounds.Round round = rounds.begin(THREADS - 1);
+            assertNotNull(round);
+
+            // the recommendations, memo and tier history a late callback would write to
+            AtomicInteger published = new AtomicInteger();
+            AtomicInteger dropped = new AtomicInteger();
+            AtomicInteger publishedAtAbandon = new AtomicInteger(-1);
+            ConcurrentRunner.run(THREADS, (thread, random) -> {
+                ConcurrentRunner.pause(random);
+                if (thread == 0) {
+                    // Find pressed again while the callbacks are landing
+                    rounds.abandon();
+                    publishedAtAbandon.set(published.get());
+                    return;
+                }
+
+                for (int result = 0; result < 4; result++) {
+                    if (!rounds.publish(round, published::incrementAndGet)) {
+                        dropped.incrementAndGet();
+                    }
+                    ConcurrentRunner.pause(random);
+                }
+            });
+
+            assertEquals("a result was published after abandon returned", publishedAtAbandon.get(), published.get());
+            assertEquals((THREADS - 1) * 4, published.get() + dropped.get());
+            assertFalse(rounds.publish(round, published::incrementAndGet));
+        }
+    }
+
+    @Test
+    public void onlyOneOfManyConcurrentStartsWins() throws Exception {
+        SearchRounds rounds = new SearchRounds();
+
+        for (int i = 0; i < ROUNDS; i++) {
+            AtomicInteger started = new AtomicInteger();
+            ConcurrentRunner.run(THREADS, (thread, random) -> {
+                ConcurrentRunner.pause(random);
+                if (rounds.begin(1) != null) {
+                    started.incrementAndGet();
+                }
+            });
+
+            assertEquals(1, started.get());
+            rounds.abandon();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.rcnoob.alchcopilot.engine;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+public class TierHistoryTest {
+
+    private static final int HIGH_VOLUME = 24 * 1000;
+    private static final int LOW_VOLUME = 24 * 10;
+    // 100 items an hour, so LOW_VOLUME items never qualify
+    private static final SearchCriteria CRITERIA = new SearchCriteria(1, 1, 0, 0, 100, MembershipFilter.BOTH);
+
+    private final AlchSearchEngine engine = new AlchSearchEngine();
+    private final TierHistory tierHistory = new TierHistory();
+
+    // profits fall with rank, so the scan order is the profit ranking
+    private static AlchSearchEngine.ScanResult scan(int size) {
+        List<Candidate> candidates = new ArrayList<>();
+        for (int rank = 0; rank < size; rank++) {
+            candidates.add(new Candidate(rank + 1, "Item " + rank, 100, 1100 - rank, 1000 - rank, 100, 100));
+        }
+        return new AlchSearchEngine.ScanResult(candidates, size, 0, 0);
+    }
+
+    // the candidate at qualifyingRank is the first liquid enough to pass the volume filter
+    private AlchSearchEngine.SearchResult searchAndRecord(AlchSearchEngine.ScanResult scan, int qualifyingRank) {
+        Map<Integer, Long> volumes = new HashMap<>();
+        for (int rank = 0; rank < scan.candidates.size(); rank++) {
+            volumes.put(scan.candidates.get(rank).getItemId(), (long) (rank < qualifyingRank ? LOW_VOLUME : HIGH_VOLUME));
+        }
+
+        AlchSearchEngine.SearchResult result = engine.select(scan, CRITERIA, tierHistory.tiersFor(CRITERIA),
+                volumes::get, AlchSearchEngine.PROFIT_AND_VOLUME);
+        if (result.probeRank >= 0) {
+            tierHistory.recordHit(CRITERIA, result.probeRank);
+        } else {
+            tierHistory.recordMiss(CRITERIA);
+        }
+        return result;
+    }
+
+    @Test
+    public void firstTierShrinksToRecentWinners() {
+        AlchSearchEngine.ScanResult scan = scan(AlchSearchEngine.MAX_CANDIDATES);
+        for (int i = 0; i < TierHistory.WINDOW; i++) {
+            searchAndRecord(scan, 0);
+        }
+
+        assertEquals(TierHistory.MIN_FIRST_TIER, tierHistory.tiersFor(CRITERIA)[0][0]);
+    }
+
+    @Test
+    public void firstTierGrowsAgainWhenWinnersMoveDown() {
+        AlchSearchEngine.ScanResult scan = scan(AlchSearchEngine.MAX_CANDIDATES);
+        for (int i = 0; i < TierHistory.WINDOW; i++) {
+            searchAndRecord(scan, 0);
+        }
+        assertEquals(TierHistory.MIN_FIRST_TIER, tierHistory.tiersFor(CRITERIA)[0][0]);
+
+        // the winner now sits below both shrunken volume tiers, the probe still sees where it is
+        int qualifyingRank = 15;
+        AlchSearchEngine.SearchResult result = searchAndRecord(scan, qualifyingRank);
+        assertNotNull(result.best);
+        assertEquals(qualifyingRank, result.probeRank);
+
+        for (int i = 0; i < TierHistory.WINDOW; i++) {
+            searchAndRecord(scan, qualifyingRank);
+        }
+        int[][] tiers = tierHistory.tiersFor(CRITERIA);
+        assertEquals(qualifyingRank + 1, tiers[0][0]);
+        assertEquals(1, tiers[0][1]);
+
+        // and the grown tier finds the winner with a volume check again
+        result = searchAndRecord(scan, qualifyingRank);
+        assertEquals(0, result.tier);
+        assertEquals(qualifyingRank + 1, result.best.getItemId());
+    }
+
+    @Test
+    public void noQualifyingCandidateWithinTheProbeIsAMiss() {
+        AlchSearchEngine.ScanResult scan = scan(AlchSearchEngine.MAX_CANDIDATES);
+        AlchSearchEngine.SearchResult result = searchAndRecord(scan, AlchSearchEngine.PROBE_WIDTH);
+
+        assertEquals(-1, result.probeRank);
+    }
+}
@@ -0,0 +1,107 @@
+package com.rcnoob.alchcopilot.headless;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.rcnoob.alchcopilot.engine.AlchSearchEngine;
+import com.rcnoob.alchcopilot.engine.ItemDataSource;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+// item data read from local wiki API dumps (/mapping, /latest and optionally /5m)
+public class DumpItemDataSource implements ItemDataSource, AlchSearchEngine.VolumeLookup {
+
+    private static final int NATURE_RUNE_ID = 561;
+
+    private final Gson gson = new Gson();
+    private final JsonArray mapping;
+    private final Map<Integer, Integer> prices = new HashMap<>();
+    private final Map<Integer, Long> fiveMinuteVolumes;
+
+    public DumpItemDataSource(File mappingFile, File latestFile, File fiveMinuteFile) throws IOException {
+        mapping = read(mappingFile, JsonArray.class);
+
+        JsonObject latest = read(latestFile, JsonObject.class).getAsJsonObject("data");
+        for (Map.Entry<String, JsonElement> entry : latest.entrySet()) {
+            int price = midPrice(entry.getValue().getAsJsonObject());
+            if (price > 0) {
+                prices.put(Integer.parseInt(entry.getKey()), price);
+            }
+        }
+
+        if (fiveMinuteFile == null) {
+            fiveMinuteVolumes = null;
+            return;
+        }
+
+        fiveMinuteVolumes = new HashMap<>();
+        JsonObject fiveMinute = read(fiveMinuteFile, JsonObject.class).getAsJsonObject("data");
+        for (Map.Entry<String, JsonElement> entry : fiveMinute.entrySet()) {
+            JsonObject itemData = entry.getValue().getAsJsonObject();
+            fiveMinuteVolumes.put(Integer.parseInt(entry.getKey()),
+                    getLong(itemData, "highPriceVolume") + getLong(itemData, "lowPriceVolume"));
+        }
+    }
+
+    @Override
+    public void forEachItem(ItemVisitor visitor) {
+        for (JsonElement element : mapping) {
+            JsonObject item = element.getAsJsonObject();
+            int itemId = item.get("id").getAsInt();
+
+            Integer price = prices.get(itemId);
+            if (price == null) {
+                continue;
+            }
+
+            visitor.visit(itemId,
+                    item.has("name") ? item.get("name").getAsString() : null,
+                    price,
+                    item.has("highalch") ? item.get("highalch").getAsInt() : 0,
+                    item.has("limit") ? item.get("limit").getAsInt() : 0,
+                    item.has("members") ? item.get("members").getAsBoolean() : null);
+        }
+    }
+
+    @Override
+    public int getNatureRunePrice() {
+        return prices.getOrDefault(NATURE_RUNE_ID, 0);
+    }
+
+    // extrapolate the 5m dump like the plugin does, unknown when no 5m dump was given
+    @Override
+    public long getEstimatedDailyVolume(int itemId) {
+        if (fiveMinuteVolumes == null) {
+            return -1;
+        }
+        return fiveMinuteVolumes.getOrDefault(itemId, 0L) * 288;
+    }
+
+    // midpoint of the latest instant buy and sell prices, or whichever side exists
+    private static int midPrice(JsonObject itemData) {
+        long high = getLong(itemData, "high");
+        long low = getLong(itemData, "low");
+        if (high > 0 && low > 0) {
+            return (int) ((high + low) / 2);
+        }
+        return (int) Math.max(high, low);
+    }
+
+    private static long getLong(JsonObject object, String key) {
+        JsonElement element = object.get(key);
+        return element != null && !element.isJsonNull() ? element.getAsLong() : 0;
+    }
+
+    private <T> T read(File file, Class<T> type) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            return gson.fromJson(reader, type);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.rcnoob.alchcopilot.headless;
+
+import com.rcnoob.alchcopilot.engine.AlchSearchEngine;
+import com.rcnoob.alchcopilot.engine.ItemTable;
+import com.rcnoob.alchcopilot.engine.MembershipFilter;
+import com.rcnoob.alchcopilot.engine.SearchCriteria;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/*
+ * Headless entry point that evaluates a grid of search criteria against local wiki API dumps.
+ *
+ * usage: ParameterSweep <mapping.json> <latest.json> [5m.json]
+ *
+ * grid axes are comma separated system properties, e.g.
+ *   -Dsweep.minimumProfit=50,100,200 -Dsweep.maxTotalPrice=0,1000000 -Dsweep.minimumVolumePerHour=0,100
+ * plus the single valued -Dsweep.minimumGeLimit, -Dsweep.maxPrice and -Dsweep.membership (F2P, P2P, BOTH)
+ *
+ * each criteria runs the plugin's own selection with the default tiers, a dump has no tier history or price trend
+ */
+public class ParameterSweep {
+
+    // below this many criteria a sweep task evaluates sequentially instead of forking
+    private static final int SEQUENTIAL_THRESHOLD = 4;
+
+    private static class Row {
+        final SearchCriteria criteria;
+        final AlchSearchEngine.SearchResult result;
+        final long nanos;
+
+        Row(SearchCriteria criteria, AlchSearchEngine.SearchResult result, long nanos) {
+            this.criteria = criteria;
+            this.result = result;
+            this.nanos = nanos;
+        }
+    }
+
+    private static class SweepTask extends RecursiveTask<List<Row>> {
+        private final AlchSearchEngine engine;
+        private final ItemTable table;
+        private final AlchSearchEngine.VolumeLookup volumes;
+        private final List<SearchCriteria> grid;
+
+        SweepTask(AlchSearchEngine engine, ItemTable table, AlchSearchEngine.VolumeLookup volumes, List<SearchCriteria> grid) {
+            this.engine = engine;
+            this.table = table;
+            this.volumes = volumes;
+            this.grid = grid;
+        }
+
+        @Override
+        protected List<Row> compute() {
+            if (grid.size() <= SEQUENTIAL_THRESHOLD) {
+                List<Row> rows = new ArrayList<>(grid.size());
+                for (SearchCriteria criteria : grid) {
+                    long start = System.nanoTime();
+                    AlchSearchEngine.SearchResult result = engine.search(table, criteria, Collections.emptySet(),
+                            AlchSearchEngine.SEARCH_TIERS, volumes, AlchSearchEngine.PROFIT_AND_VOLUME);
+                    rows.add(new Row(criteria, result, System.nanoTime() - start));
+                }
+                return rows;
+            }
+
+            int middle = grid.size() / 2;
+            SweepTask left = new SweepTask(engine, table, volumes, grid.subList(0, middle));
+            SweepTask right = new SweepTask(engine, table, volumes, grid.subList(middle, grid.size()));
+            left.fork();
+            List<Row> rows = new ArrayList<>(right.compute());
+            rows.addAll(0, left.join());
+            return rows;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("usage: ParameterSweep <mapping.json> <latest.json> [5m.json]");
+            System.exit(1);
+        }
+
+        long loadStart = System.nanoTime();
+        DumpItemDataSource source = new DumpItemDataSource(new File(args[0]), new File(args[1]),
+                args.length > 2 ? new File(args[2]) : null);
+        ItemTable table = ItemTable.capture(source);
+        System.out.printf("Loaded %d priced items in %d ms%n", table.size(), (System.nanoTime() - loadStart) / 1_000_000);
+
+        List<SearchCriteria> grid = buildGrid();
+        AlchSearchEngine engine = new AlchSearchEngine();
+
+        long sweepStart = System.nanoTime();
+        List<Row> rows = ForkJoinPool.commonPool().invoke(new SweepTask(engine, table, source, grid));
+        long sweepNanos = System.nanoTime() - sweepStart;
+
+        System.out.println("minimumProfit,maxTotalPrice,minimumVolumePerHour,candidates,item,profit,score,tier,micros");
+        for (Row row : rows) {
+            AlchSearchEngine.SearchResult result = row.result;
+            System.out.printf("%d,%d,%d,%d,%s,%d,%.4f,%d,%d%n",
+                    row.criteria.getMinimumProfit(),
+                    row.criteria.getMaxTotalPrice(),
+                    row.criteria.getMinimumVolumePerHour(),
+                    result.candidateCount,
+                    result.best != null ? '"' + result.best.getName() + '"' : "",
+                    result.best != null ? result.best.getProfit() : 0,
+                    result.score,
+                    result.tier + 1,
+                    row.nanos / 1000);
+        }
+
+        System.out.printf("Evaluated %d criteria in %d ms on %d threads%n",
+                rows.size(), sweepNanos / 1_000_000, ForkJoinPool.commonPool().getParallelism());
+    }
+
+    private static List<SearchCriteria> buildGrid() {
+        int[] minimumProfits = axis("sweep.minimumProfit", "50,100,200,400");
+        int[] maxTotalPrices = axis("sweep.maxTotalPrice", "0,1000000,5000000,20000000");
+        int[] minimumVolumes = axis("sweep.minimumVolumePerHour", "0,50,100,500");
+        int minimumGeLimit = Integer.getInteger("sweep.minimumGeLimit", 100);
+        int maxPrice = Integer.getInteger("sweep.maxPrice", 0);
+        MembershipFilter membership =
+                MembershipFilter.valueOf(System.getProperty("sweep.membership", "BOTH"));
+
+        List<SearchCriteria> grid = new ArrayList<>();
+        for (int minimumProfit : minimumProfits) {
+            for (int maxTotalPrice : maxTotalPrices) {
+                for (int minimumVolume : minimumVolumes) {
+                    grid.add(new SearchCriteria(minimumProfit, minimumGeLimit, maxPrice, maxTotalPrice,
+                            minimumVolume, membership));
+                }
+            }
+        }
+        return grid;
+    }
+
+    private static int[] axis(String property, String defaults) {
+        String[] values = System.getProperty(property, defaults).split(",");
+        int[] parsed = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            parsed[i] = Integer.parseInt(values[i].trim());
+        }
+        return parsed;
+    }
+}
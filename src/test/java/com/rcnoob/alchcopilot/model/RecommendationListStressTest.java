@@ -0,0 +1,135 @@
+package com.rcnoob.alchcopilot.model;
+
+import com.rcnoob.alchcopilot.ConcurrentRunner;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RecommendationListStressTest {
+
+    private static final int THREADS = 16;
+    private static final int ITEMS = 400;
+    private static final int ADDS_PER_THREAD = 2000;
+
+    // profit is unique per item so the expected ranking is unambiguous
+    private static AlchItem item(int itemId) {
+        return new AlchItem("Item " + itemId, itemId, 100, 100 + itemId * 7 % 997 + itemId, itemId * 7 % 997 + itemId, 100, null);
+    }
+
+    @Test
+    public void concurrentAddsAreNeitherLostNorDuplicated() throws Exception {
+        RecommendationList list = new RecommendationList();
+        Set<Integer> attempted = ConcurrentHashMap.newKeySet();
+        AtomicInteger accepted = new AtomicInteger();
+
+        ConcurrentRunner.run(THREADS, (thread, random) -> {
+            for (int i = 0; i < ADDS_PER_THREAD; i++) {
+                int itemId = random.nextInt(ITEMS);
+                attempted.add(itemId);
+                if (list.add(item(itemId), null, Integer.MAX_VALUE)) {
+                    accepted.incrementAndGet();
+                }
+                ConcurrentRunner.pause(random);
+            }
+        });
+
+        // every distinct item was accepted exactly once
+        assertEquals(attempted.size(), accepted.get());
+        assertEquals(attempted, list.getItemIds());
+        assertConsistent(list, Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void trimmedListKeepsTheBestItems() throws Exception {
+        int maxRecommendations = 10;
+        RecommendationList list = new RecommendationList();
+        Set<Integer> attempted = ConcurrentHashMap.newKeySet();
+
+        ConcurrentRunner.run(THREADS, (thread, random) -> {
+            for (int i = 0; i < ADDS_PER_THREAD; i++) {
+                int itemId = random.nextInt(ITEMS);
+                attempted.add(itemId);
+                list.add(item(itemId), null, maxRecommendations);
+                ConcurrentRunner.pause(random);
+            }
+        });
+
+        // an item in the top ten never has ten better items above it, so it can't have been trimmed
+        List<AlchItem> expected = new ArrayList<>();
+        for (int itemId : attempted) {
+            expected.add(item(itemId));
+        }
+        expected.sort((a, b) -> Integer.compare(b.getHighAlchProfit(), a.getHighAlchProfit()));
+
+        List<AlchItem> items = list.getItems();
+        assertEquals(maxRecommendations, items.size());
+        for (int i = 0; i < maxRecommendations; i++) {
+            assertEquals(expected.get(i).getItemId(), items.get(i).getItemId());
+        }
+        assertConsistent(list, maxRecommendations);
+    }
+
+    @Test
+    public void readersNeverSeeATornList() throws Exception {
+        int maxRecommendations = 25;
+        RecommendationList list = new RecommendationList();
+
+        ConcurrentRunner.run(THREADS, (thread, random) -> {
+            for (int i = 0; i < ADDS_PER_THREAD; i++) {
+                int operation = random.nextInt(20);
+                if (operation == 0) {
+                    list.clear();
+                } else if (operation < 4) {
+                    list.remove(item(random.nextInt(ITEMS)));
+                } else if (operation < 10) {
+                    // what the panel and the search exclusions read while callbacks mutate
+                    List<AlchItem> items = list.getItems();
+                    assertTrue(items.size() <= maxRecommendations);
+                    assertNoDuplicates(items);
+                    assertSorted(items);
+                } else {
+                    list.add(item(random.nextInt(ITEMS)), null, maxRecommendations);
+                }
+                ConcurrentRunner.pause(random);
+            }
+        });
+
+        assertConsistent(list, maxRecommendations);
+    }
+
+    // the item list and the id set describe the same items, sorted and within the cap
+    private static void assertConsistent(RecommendationList list, int maxRecommendations) {
+        List<AlchItem> items = list.getItems();
+        Set<Integer> ids = new HashSet<>();
+        for (AlchItem item : items) {
+            ids.add(item.getItemId());
+        }
+
+        assertEquals(ids, list.getItemIds());
+        assertEquals(items.size(), list.size());
+        assertTrue(items.size() <= maxRecommendations);
+        assertNoDuplicates(items);
+        assertSorted(items);
+    }
+
+    private static void assertNoDuplicates(List<AlchItem> items) {
+        Set<Integer> seen = new HashSet<>();
+        for (AlchItem item : items) {
+            assertTrue("duplicate recommendation " + item.getItemId(), seen.add(item.getItemId()));
+        }
+    }
+
+    private static void assertSorted(List<AlchItem> items) {
+        for (int i = 1; i < items.size(); i++) {
+            assertTrue(items.get(i - 1).getHighAlchProfit() >= items.get(i).getHighAlchProfit());
+        }
+    }
+}
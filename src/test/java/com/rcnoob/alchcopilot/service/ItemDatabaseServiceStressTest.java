@@ -0,0 +1,124 @@
+package com.rcnoob.alchcopilot.service;
+
+import com.google.gson.Gson;
+import com.rcnoob.alchcopilot.AlchCopilotConfig;
+import com.rcnoob.alchcopilot.ConcurrentRunner;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ItemDatabaseServiceStressTest {
+
+    private static final int THREADS = 16;
+    private static final String ITEM_DATABASE = "{\"1\":{\"members\":true},\"2\":{\"members\":false},\"3\":{\"name\":\"Unflagged\"}}";
+
+    private final AtomicInteger downloads = new AtomicInteger();
+    private final AtomicInteger downloading = new AtomicInteger();
+    private final AtomicInteger maxDownloading = new AtomicInteger();
+    private OkHttpClient httpClient;
+    private ItemDatabaseService service;
+
+    @Before
+    public void setUp() {
+        // answers every request locally, slowly enough for callers to pile up behind it
+        httpClient = new OkHttpClient.Builder()
+                .addInterceptor(chain -> {
+                    downloads.incrementAndGet();
+                    maxDownloading.accumulateAndGet(downloading.incrementAndGet(), Math::max);
+                    try {
+                        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(5 + ThreadLocalRandom.current().nextInt(20)));
+                        return new Response.Builder()
+                                .request(chain.request())
+                                .protocol(Protocol.HTTP_1_1)
+                                .code(200)
+                                .message("OK")
+                                .body(ResponseBody.create(MediaType.parse("application/json"), ITEM_DATABASE))
+                                .build();
+                    } finally {
+                        downloading.decrementAndGet();
+                    }
+                })
+                .build();
+
+        CacheBudget cacheBudget = new CacheBudget(new AlchCopilotConfig() {
+        });
+        service = new ItemDatabaseService(httpClient, new Gson(), new SingleFlightFetcher(cacheBudget),
+                new RequestScheduler());
+    }
+
+    @Test
+    public void concurrentLookupsDownloadOnce() throws Exception {
+        ConcurrentRunner.run(THREADS, (thread, random) -> {
+            for (int i = 0; i < 100; i++) {
+                int itemId = 1 + random.nextInt(3);
+                assertMembership(itemId, service.isItemMembersOnly(itemId).get(10, TimeUnit.SECONDS));
+                ConcurrentRunner.pause(random);
+            }
+        });
+
+        assertEquals(1, downloads.get());
+        assertEquals(2, service.getCacheSize());
+    }
+
+    @Test
+    public void refreshesNeverOverlapDownloads() throws Exception {
+        ConcurrentRunner.run(THREADS, (thread, random) -> {
+            for (int i = 0; i < 50; i++) {
+                if (random.nextInt(80) == 0) {
+                    service.refreshDatabase().get(10, TimeUnit.SECONDS);
+                } else {
+                    int itemId = 1 + random.nextInt(3);
+                    assertMembership(itemId, service.isItemMembersOnly(itemId).get(10, TimeUnit.SECONDS));
+                }
+                ConcurrentRunner.pause(random);
+            }
+        });
+
+        assertEquals("downloads overlapped", 1, maxDownloading.get());
+        assertEquals(2, service.getCacheSize());
+    }
+
+    @Test
+    public void evictedDatabaseIsReloaded() throws Exception {
+        // a budget too small to hold the table evicts it as soon as it is cached
+        CacheBudget cacheBudget = new CacheBudget(new AlchCopilotConfig() {
+            @Override
+            public int memoryBudget() {
+                return 0;
+            }
+        });
+        ItemDatabaseService evicting = new ItemDatabaseService(httpClient, new Gson(),
+                new SingleFlightFetcher(cacheBudget), new RequestScheduler());
+
+        for (int i = 0; i < 3; i++) {
+            for (int itemId = 1; itemId <= 3; itemId++) {
+                assertMembership(itemId, evicting.isItemMembersOnly(itemId).get(10, TimeUnit.SECONDS));
+            }
+        }
+
+        assertEquals(9, downloads.get());
+        assertEquals(0, evicting.getCacheSize());
+    }
+
+    private static void assertMembership(int itemId, Boolean members) {
+        if (itemId == 1) {
+            assertEquals(Boolean.TRUE, members);
+        } else if (itemId == 2) {
+            assertEquals(Boolean.FALSE, members);
+        } else {
+            assertNull(members);
+        }
+    }
+}
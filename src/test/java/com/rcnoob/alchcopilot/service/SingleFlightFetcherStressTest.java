@@ -0,0 +1,157 @@
+package com.rcnoob.alchcopilot.service;
+
+import com.rcnoob.alchcopilot.AlchCopilotConfig;
+import com.rcnoob.alchcopilot.ConcurrentRunner;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SingleFlightFetcherStressTest {
+
+    private static final int THREADS = 16;
+    private static final int ROUNDS = 200;
+    private static final Duration TTL = Duration.ofMinutes(1);
+
+    private SingleFlightFetcher fetcher;
+    private final AtomicInteger loading = new AtomicInteger();
+    private final AtomicInteger maxLoading = new AtomicInteger();
+
+    @Before
+    public void setUp() {
+        fetcher = new SingleFlightFetcher(new CacheBudget(new AlchCopilotConfig() {
+        }));
+    }
+
+    // a slow fake download that records how many run at once
+    private Object load(Object value) {
+        maxLoading.accumulateAndGet(loading.incrementAndGet(), Math::max);
+        try {
+            LockSupport.parkNanos(ThreadLocalRandom.current().nextInt(200_000));
+            return value;
+        } finally {
+            loading.decrementAndGet();
+        }
+    }
+
+    @Test
+    public void concurrentCallersShareOneLoad() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            String url = "https://prices.test/" + round;
+            AtomicInteger loads = new AtomicInteger();
+            Set<Object> results = ConcurrentHashMap.newKeySet();
+
+            ConcurrentRunner.run(THREADS, (thread, random) -> {
+                ConcurrentRunner.pause(random);
+                Object result = fetcher.fetch(url, TTL, () -> {
+                    loads.incrementAndGet();
+                    return load(new Object());
+                }).get(5, TimeUnit.SECONDS);
+                results.add(result);
+            });
+
+            assertEquals("loads of " + url, 1, loads.get());
+            assertEquals("callers saw different results", 1, results.size());
+            assertSame(results.iterator().next(), fetcher.getCached(url));
+        }
+        assertEquals(1, maxLoading.get());
+    }
+
+    @Test
+    public void failuresAreSharedButNeverCached() throws Exception {
+        String url = "https://prices.test/failing";
+        AtomicInteger failures = new AtomicInteger();
+
+        ConcurrentRunner.run(THREADS, (thread, random) -> {
+            for (int i = 0; i < 20; i++) {
+                try {
+                    fetcher.fetch(url, TTL, () -> {
+                        load(null);
+                        throw new IOException("HTTP 503");
+                    }).get(5, TimeUnit.SECONDS);
+                } catch (ExecutionException e) {
+                    failures.incrementAndGet();
+                }
+                ConcurrentRunner.pause(random);
+            }
+        });
+
+        assertEquals(THREADS * 20, failures.get());
+        assertEquals("failed loads overlapped", 1, maxLoading.get());
+        assertEquals(null, fetcher.getCached(url));
+
+        // the next caller retries instead of being served the failure
+        Object value = new Object();
+        assertSame(value, fetcher.fetch(url, TTL, () -> value).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void interactiveCallersOvertakeBackgroundLoads() throws Exception {
+        String url = "https://prices.test/prewarmed";
+        CountDownLatch paced = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+
+        // a prewarm stuck behind the request pacing
+        CompletableFuture<String> background = fetcher.fetch(url, TTL, RequestScheduler.Priority.BACKGROUND, priority -> {
+            loads.incrementAndGet();
+            paced.await(5, TimeUnit.SECONDS);
+            return "late " + priority;
+        });
+        CompletableFuture<String> joined = fetcher.fetch(url, TTL, RequestScheduler.Priority.BACKGROUND, priority -> {
+            loads.incrementAndGet();
+            return "duplicate " + priority;
+        });
+
+        ConcurrentRunner.run(THREADS, (thread, random) -> {
+            ConcurrentRunner.pause(random);
+            String result = fetcher.fetch(url, TTL, RequestScheduler.Priority.INTERACTIVE, priority -> {
+                loads.incrementAndGet();
+                return (String) load(priority.name());
+            }).get(1, TimeUnit.SECONDS);
+            assertEquals("INTERACTIVE", result);
+        });
+
+        // the background callers are served the interactive result instead of waiting on their own load
+        assertEquals("INTERACTIVE", background.get(1, TimeUnit.SECONDS));
+        assertEquals("INTERACTIVE", joined.get(1, TimeUnit.SECONDS));
+        assertEquals("one background and one interactive load", 2, loads.get());
+        assertEquals("INTERACTIVE", fetcher.getCached(url));
+        paced.countDown();
+    }
+
+    @Test
+    public void invalidationNeverStartsOverlappingLoads() throws Exception {
+        String url = "https://prices.test/invalidated";
+        AtomicInteger loads = new AtomicInteger();
+
+        ConcurrentRunner.run(THREADS, (thread, random) -> {
+            for (int i = 0; i < 50; i++) {
+                if (random.nextInt(5) == 0) {
+                    fetcher.invalidate(url);
+                } else {
+                    Object result = fetcher.fetch(url, TTL, () -> load(loads.incrementAndGet())).get(5, TimeUnit.SECONDS);
+                    assertTrue(result instanceof Integer);
+                }
+                ConcurrentRunner.pause(random);
+            }
+        });
+
+        assertEquals("loads overlapped", 1, maxLoading.get());
+        assertTrue(loads.get() >= 1);
+        assertEquals(loads.get(), (int) (Integer) fetcher.getCached(url));
+    }
+}